@@ -0,0 +1,71 @@
+package net.bluephod.henkinson.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import net.bluephod.henkinson.jenkins.StreamingJenkinsDecoder;
+import net.bluephod.henkinson.jenkins.model.JenkinsApiRoot;
+import net.bluephod.henkinson.jenkins.model.JenkinsProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two ways of decoding Jenkins responses: Jackson databind into the model classes and the {@link StreamingJenkinsDecoder}.
+ * <p>
+ * The payloads are held in memory, so only the decoding is measured, not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodingBenchmark {
+	@Param({"100", "1000", "10000"})
+	private int jobs;
+
+	private byte[] root;
+	private byte[] project;
+	private ObjectMapper mapper;
+	private StreamingJenkinsDecoder decoder;
+
+	@Setup
+	public void setUp() throws IOException {
+		root = JenkinsPayloads.createRoot(jobs);
+		project = JenkinsPayloads.createProject(jobs);
+		mapper = new ObjectMapper();
+		decoder = new StreamingJenkinsDecoder(JenkinsPayloads.createConfiguration());
+	}
+
+	@Benchmark
+	public JenkinsApiRoot databindRoot() throws IOException {
+		return mapper.readValue(new ByteArrayInputStream(root), JenkinsApiRoot.class);
+	}
+
+	@Benchmark
+	public StreamingJenkinsDecoder.DecodedRoot streamingRoot() throws IOException {
+		return decoder.decodeRoot(new ByteArrayInputStream(root));
+	}
+
+	@Benchmark
+	public JenkinsProject databindProject() throws IOException {
+		return mapper.readValue(new ByteArrayInputStream(project), JenkinsProject.class);
+	}
+
+	@Benchmark
+	public JenkinsStatus streamingProject() throws IOException {
+		return decoder.decodeProject(new ByteArrayInputStream(project), "project");
+	}
+}
@@ -0,0 +1,86 @@
+package net.bluephod.henkinson.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.bluephod.henkinson.config.Configuration;
+
+/**
+ * Synthetic Jenkins API responses for the benchmarks.
+ * <p>
+ * The payloads look like what Jenkins 2.x delivers without a tree query, including the <code>_class</code> fields and a bit of clutter
+ * the decoders have to skip, so the numbers aren't too flattering.
+ */
+final class JenkinsPayloads {
+	private static final String[] COLORS = {"blue", "blue", "blue", "blue", "yellow", "red", "blue_anime", "notbuilt"};
+
+	private JenkinsPayloads() {
+	}
+
+	/**
+	 * Creates a root resource. Every third job is a single-branch project, the others are multi-branch projects.
+	 *
+	 * @param jobs The number of jobs.
+	 * @return The JSON.
+	 */
+	static byte[] createRoot(int jobs) {
+		StringBuilder json = new StringBuilder("{\"_class\":\"hudson.model.Hudson\",\"assignedLabels\":[{\"name\":\"master\"}],")
+				.append("\"mode\":\"NORMAL\",\"nodeDescription\":\"the master Jenkins node\",\"jobs\":[");
+
+		for(int i = 0; i < jobs; i++) {
+			if(i > 0) {
+				json.append(',');
+			}
+
+			if(i % 3 == 0) {
+				json.append("{\"_class\":\"hudson.model.FreeStyleProject\",\"name\":\"project-").append(i)
+						.append("\",\"url\":\"http://jenkins.example.com/job/project-").append(i)
+						.append("/\",\"color\":\"").append(COLORS[i % COLORS.length]).append("\"}");
+			}
+			else {
+				json.append("{\"_class\":\"org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject\",\"name\":\"project-")
+						.append(i).append("\",\"url\":\"http://jenkins.example.com/job/project-").append(i).append("/\"}");
+			}
+		}
+
+		return json.append("],\"quietingDown\":false,\"slaveAgentPort\":50000,\"useCrumbs\":true,\"useSecurity\":true}")
+				.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Creates the resource of a multi-branch project.
+	 *
+	 * @param branches The number of branches. The first one is the master branch.
+	 * @return The JSON.
+	 */
+	static byte[] createProject(int branches) {
+		StringBuilder json = new StringBuilder("{\"_class\":\"org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject\",")
+				.append("\"actions\":[{},{\"_class\":\"com.cloudbees.plugins.credentials.ViewCredentialsAction\"}],")
+				.append("\"description\":null,\"displayName\":\"project\",\"fullName\":\"project\",\"name\":\"project\",")
+				.append("\"url\":\"http://jenkins.example.com/job/project/\",\"healthReport\":[{\"score\":100}],\"jobs\":[");
+
+		for(int i = 0; i < branches; i++) {
+			if(i > 0) {
+				json.append(',');
+			}
+
+			json.append("{\"_class\":\"org.jenkinsci.plugins.workflow.job.WorkflowJob\",\"name\":\"")
+					.append(i == 0 ? "master" : "feature%2Fbranch-" + i)
+					.append("\",\"url\":\"http://jenkins.example.com/job/project/job/branch-").append(i)
+					.append("/\",\"color\":\"").append(COLORS[i % COLORS.length]).append("\"}");
+		}
+
+		return json.append("],\"primaryView\":{\"_class\":\"jenkins.branch.MultiBranchProjectViewHolder$ViewImpl\"}}")
+				.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Creates a configuration that counts feature branches, so the decoders have as much work as possible.
+	 *
+	 * @return The configuration.
+	 */
+	static Configuration createConfiguration() throws IOException {
+		return new ObjectMapper().readValue("{\"includeFeatureBranches\":true,\"masterBranchName\":\"master\"}", Configuration.class);
+	}
+}
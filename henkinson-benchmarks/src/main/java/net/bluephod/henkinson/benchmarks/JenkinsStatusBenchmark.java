@@ -0,0 +1,78 @@
+package net.bluephod.henkinson.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.bluephod.henkinson.jenkins.BuildColor;
+import net.bluephod.henkinson.jenkins.JenkinsBranchInfo;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a {@link JenkinsStatus} and reading the branch lists the GUI asks for on every redraw.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JenkinsStatusBenchmark {
+	private static final String[] COLORS = {"blue", "blue", "blue", "yellow", "red", "blue_anime", "red_anime", "disabled"};
+
+	@Param({"100", "1000", "10000"})
+	private int branches;
+
+	private String[] projectNames;
+	private String[] branchNames;
+	private String[] colors;
+	private JenkinsStatus status;
+
+	@Setup
+	public void setUp() {
+		projectNames = new String[branches];
+		branchNames = new String[branches];
+		colors = new String[branches];
+
+		for(int i = 0; i < branches; i++) {
+			// the projects are deliberately out of order, so the sorting has something to do.
+			projectNames[i] = "project-" + ((i * 7919) % branches / 10);
+			branchNames[i] = "branch-" + i;
+			colors[i] = COLORS[i % COLORS.length];
+		}
+
+		status = buildStatus();
+	}
+
+	@Benchmark
+	public JenkinsStatus buildStatus() {
+		JenkinsStatus.Builder builder = new JenkinsStatus.Builder();
+
+		for(int i = 0; i < branches; i++) {
+			builder.updateStats(projectNames[i], branchNames[i], colors[i]);
+		}
+
+		return builder.build();
+	}
+
+	@Benchmark
+	public List<JenkinsBranchInfo> branchesWithColor() {
+		return status.getBranchesWithColor(BuildColor.RED);
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public List<JenkinsBranchInfo> branchesWitchColor() {
+		return status.getBranchesWitchColor("red");
+	}
+}
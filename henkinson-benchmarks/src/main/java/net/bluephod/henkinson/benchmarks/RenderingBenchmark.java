@@ -0,0 +1,139 @@
+package net.bluephod.henkinson.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import net.bluephod.henkinson.visualization.HenkinsonCanvas;
+import net.bluephod.henkinson.visualization.SimulatedLedDriver;
+import net.bluephod.henkinson.visualization.VuMeterLayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a single frame of the VU meter, from computing the distribution to pushing the frame to the driver.
+ * <p>
+ * The strip is a {@link SimulatedLedDriver}, so this measures our code and not the DMA transfer of the real one. The animations are
+ * driven with made-up timestamps that alternate between two points in the middle of an animation, so every frame actually differs from
+ * the previous one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderingBenchmark {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Param({"60", "300"})
+	private int columns;
+
+	private JenkinsStatus mostlyGreen;
+	private JenkinsStatus mostlyRed;
+
+	private HenkinsonCanvas canvas;
+	private VuMeterLayer morphingLayer;
+	private VuMeterLayer fadingLayer;
+	private int[] morphBuffer;
+	private int[] fadeBuffer;
+	private int[] frameA;
+	private int[] frameB;
+	private long morphStart;
+	private long fadeStart;
+	private boolean flip;
+
+	@Setup
+	public void setUp() {
+		mostlyGreen = createStatus(80, 15, 5);
+		mostlyRed = createStatus(10, 20, 70);
+
+		canvas = new HenkinsonCanvas(new SimulatedLedDriver(columns * 2, 255, 1, null));
+		morphBuffer = new int[columns];
+		fadeBuffer = new int[columns];
+		frameA = new int[columns];
+		frameB = new int[columns];
+
+		for(int column = 0; column < columns; column++) {
+			frameA[column] = 0x00ff00;
+			frameB[column] = column % 2 == 0 ? 0xff0000 : 0xffff00;
+		}
+
+		long now = 0;
+
+		// let the fade-in finish, then start morphing to the other status.
+		morphingLayer = new VuMeterLayer(columns);
+		morphingLayer.update(mostlyGreen);
+		morphingLayer.draw(morphBuffer, now);
+		morphingLayer.draw(morphBuffer, now + 10 * SECOND);
+		morphingLayer.update(mostlyRed);
+		morphStart = now + 20 * SECOND;
+		morphingLayer.draw(morphBuffer, morphStart);
+
+		fadingLayer = new VuMeterLayer(columns);
+		fadingLayer.update(mostlyGreen);
+		fadeStart = now;
+		fadingLayer.draw(fadeBuffer, fadeStart);
+	}
+
+	@Benchmark
+	public void distribution() {
+		flip = !flip;
+		morphingLayer.update(flip ? mostlyGreen : mostlyRed);
+	}
+
+	@Benchmark
+	public boolean morphFrame() {
+		flip = !flip;
+		morphingLayer.draw(morphBuffer, morphStart + (flip ? 300 : 600) * SECOND / 1000);
+		canvas.setFrame(morphBuffer);
+		return canvas.render();
+	}
+
+	@Benchmark
+	public boolean fadeFrame() {
+		flip = !flip;
+		fadingLayer.draw(fadeBuffer, fadeStart + (flip ? 200 : 400) * SECOND / 1000);
+		canvas.setFrame(fadeBuffer);
+		return canvas.render();
+	}
+
+	@Benchmark
+	public boolean renderChangedFrame() {
+		flip = !flip;
+		canvas.setFrame(flip ? frameA : frameB);
+		return canvas.render();
+	}
+
+	@Benchmark
+	public boolean renderUnchangedFrame() {
+		canvas.setFrame(frameA);
+		return canvas.render();
+	}
+
+	private JenkinsStatus createStatus(int green, int yellow, int red) {
+		JenkinsStatus.Builder builder = new JenkinsStatus.Builder();
+
+		for(int i = 0; i < green; i++) {
+			builder.updateStats("green-" + i, "blue");
+		}
+
+		for(int i = 0; i < yellow; i++) {
+			builder.updateStats("yellow-" + i, "yellow");
+		}
+
+		for(int i = 0; i < red; i++) {
+			builder.updateStats("red-" + i, "red");
+		}
+
+		return builder.build();
+	}
+}
@@ -0,0 +1,500 @@
+package net.bluephod.henkinson.benchmarks.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.pmw.tinylog.Logger;
+
+/**
+ * A stand-in for the Jenkins API that can be run locally.
+ * <p>
+ * A real Jenkins in a container (see <code>etc/run_jenkins</code>) takes ages to start and nobody is going to click together a thousand
+ * jobs in it. This server pretends to be a Jenkins with a number of multi-branch projects, each with the same number of branches, and
+ * serves the same JSON structure as the real thing for the root resource and the projects. It knows tree queries, sends ETag and
+ * Last-Modified headers, answers conditional requests with "304 Not Modified" and compresses responses if asked to.
+ * <p>
+ * To make things a bit more realistic, responses can be delayed, a share of requests can fail with a 500, and the status of branches
+ * keeps changing ("churn"): every second, each project has a chance of getting one of its branches changed to a random color, possibly
+ * with a running build.
+ * <p>
+ * Run it with <code>java -cp target/benchmarks.jar net.bluephod.henkinson.benchmarks.fake.FakeJenkins</code> and options like
+ * <code>--projects=200 --branches=20 --latency=50</code> (see {@link #main(String[])}), then point <code>jenkinsBaseUrl</code> at
+ * <code>http://localhost:9001/api/json</code>.
+ */
+public class FakeJenkins {
+	private static final String[] COLORS = {"blue", "yellow", "red"};
+	private static final long CHURN_INTERVAL = 1000;
+
+	private final int port;
+	private final int projects;
+	private final int branches;
+	private final int latency;
+	private final int jitter;
+	private final double errorRate;
+	private final double churnRate;
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+	private final String[][] colors;
+	private final long[] projectModified;
+	private final long startTime = System.currentTimeMillis();
+	private long lastModified;
+	private long version;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong notModified = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Creates a fake Jenkins. It doesn't do anything before it is {@link #start(int) started}.
+	 *
+	 * @param port The port to listen on.
+	 * @param projects The number of multi-branch projects.
+	 * @param branches The number of branches per project, including the master branch.
+	 * @param latency The time in ms each response is delayed by.
+	 * @param jitter The maximum random time in ms that is added to the latency.
+	 * @param errorRate The share of requests (0-1) that fail with a 500.
+	 * @param churnRate The chance (0-1) of each project to get a branch changed every second.
+	 */
+	public FakeJenkins(int port, int projects, int branches, int latency, int jitter, double errorRate, double churnRate) {
+		this.port = port;
+		this.projects = projects;
+		this.branches = branches;
+		this.latency = latency;
+		this.jitter = jitter;
+		this.errorRate = errorRate;
+		this.churnRate = churnRate;
+		this.colors = new String[projects][branches];
+		this.projectModified = new long[projects];
+
+		// start out mostly green, like a Jenkins should be.
+		lastModified = startTime;
+
+		for(int project = 0; project < projects; project++) {
+			for(int branch = 0; branch < branches; branch++) {
+				colors[project][branch] = ThreadLocalRandom.current().nextInt(10) == 0 ? "red" : "blue";
+			}
+
+			projectModified[project] = lastModified;
+		}
+	}
+
+	/**
+	 * Starts the fake Jenkins with options given as <code>--name=value</code>.
+	 * <p>
+	 * The options are <code>port</code> (9001), <code>projects</code> (100), <code>branches</code> (10), <code>latency</code> (0),
+	 * <code>jitter</code> (0), <code>errorRate</code> (0), <code>churnRate</code> (0.05) and <code>threads</code> (16).
+	 *
+	 * @param args The options.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = 9001;
+		int projects = 100;
+		int branches = 10;
+		int latency = 0;
+		int jitter = 0;
+		double errorRate = 0;
+		double churnRate = 0.05;
+		int threads = 16;
+
+		for(String arg : args) {
+			String[] option = arg.replaceFirst("^--", "").split("=", 2);
+
+			if(option.length != 2) {
+				throw new IllegalArgumentException("Options must look like --name=value, got " + arg);
+			}
+
+			switch(option[0]) {
+				case "port":
+					port = Integer.parseInt(option[1]);
+					break;
+				case "projects":
+					projects = Integer.parseInt(option[1]);
+					break;
+				case "branches":
+					branches = Integer.parseInt(option[1]);
+					break;
+				case "latency":
+					latency = Integer.parseInt(option[1]);
+					break;
+				case "jitter":
+					jitter = Integer.parseInt(option[1]);
+					break;
+				case "errorRate":
+					errorRate = Double.parseDouble(option[1]);
+					break;
+				case "churnRate":
+					churnRate = Double.parseDouble(option[1]);
+					break;
+				case "threads":
+					threads = Integer.parseInt(option[1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + option[0]);
+			}
+		}
+
+		FakeJenkins jenkins = new FakeJenkins(port, projects, branches, latency, jitter, errorRate, churnRate);
+		jenkins.start(threads);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(jenkins::stop));
+	}
+
+	/**
+	 * Starts serving requests.
+	 *
+	 * @param threads The number of requests that can be served at the same time.
+	 * @throws IOException If the server can't be started.
+	 */
+	public synchronized void start(int threads) throws IOException {
+		executor = Executors.newFixedThreadPool(threads);
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+
+		if(churnRate > 0) {
+			scheduler.scheduleAtFixedRate(this::churn, CHURN_INTERVAL, CHURN_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+
+		scheduler.scheduleAtFixedRate(this::logStats, 10, 10, TimeUnit.SECONDS);
+
+		Logger.info(String.format("Fake Jenkins with %d projects and %d branches each is listening on port %d.", projects, branches, port));
+	}
+
+	public synchronized void stop() {
+		if(server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			scheduler.shutdownNow();
+			server = null;
+		}
+	}
+
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	public long getNotModifiedCount() {
+		return notModified.get();
+	}
+
+	public long getErrorCount() {
+		return errors.get();
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try {
+			requests.incrementAndGet();
+			delay();
+
+			if(errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				errors.incrementAndGet();
+				send(exchange, 500, "Simulated failure".getBytes(StandardCharsets.UTF_8), null, 0);
+				return;
+			}
+
+			String path = exchange.getRequestURI().getPath();
+			TreeQuery tree = TreeQuery.parse(getQueryParameter(exchange.getRequestURI().getRawQuery(), "tree"));
+
+			if(path.equals("/api/json")) {
+				serveRoot(exchange, tree);
+			}
+			else if(path.startsWith("/job/project-") && path.endsWith("/api/json")) {
+				serveProject(exchange, path, tree);
+			}
+			else {
+				send(exchange, 404, "Not found".getBytes(StandardCharsets.UTF_8), null, 0);
+			}
+		}
+		catch(IllegalArgumentException e) {
+			send(exchange, 400, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8), null, 0);
+		}
+		catch(RuntimeException e) {
+			Logger.error(e, "Could not handle request.");
+			send(exchange, 500, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8), null, 0);
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	private void serveRoot(final HttpExchange exchange, final TreeQuery tree) throws IOException {
+		boolean branchesIncluded = tree != TreeQuery.ALL && tree.get("jobs").includes("jobs");
+		byte[] body;
+		long modified;
+		String etag;
+
+		synchronized(this) {
+			// the root only changes with the branches if they are part of the response.
+			// without them, it only lists the projects, which never change - so it's as old as the server.
+			modified = branchesIncluded ? lastModified : startTime;
+			etag = branchesIncluded ? "\"root-" + version + "\"" : "\"root\"";
+			body = isNotModified(exchange, etag, modified) ? null : writeRoot(tree);
+		}
+
+		// the response is sent outside the lock, so a slow client doesn't hold up everybody else.
+		send(exchange, body == null ? 304 : 200, body, etag, modified);
+	}
+
+	private void serveProject(final HttpExchange exchange, final String path, final TreeQuery tree) throws IOException {
+		int project;
+
+		try {
+			project = Integer.parseInt(path.substring("/job/project-".length(), path.length() - "/api/json".length()).replace("/", ""));
+		}
+		catch(NumberFormatException e) {
+			send(exchange, 404, "Not found".getBytes(StandardCharsets.UTF_8), null, 0);
+			return;
+		}
+
+		if(project < 0 || project >= projects) {
+			send(exchange, 404, "Not found".getBytes(StandardCharsets.UTF_8), null, 0);
+			return;
+		}
+
+		byte[] body;
+		long modified;
+		String etag;
+
+		synchronized(this) {
+			modified = projectModified[project];
+			etag = "\"project-" + project + "-" + modified + "\"";
+			body = isNotModified(exchange, etag, modified) ? null : writeProject(project, tree);
+		}
+
+		send(exchange, body == null ? 304 : 200, body, etag, modified);
+	}
+
+	private boolean isNotModified(final HttpExchange exchange, final String etag, final long modified) {
+		String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+
+		if(ifNoneMatch != null) {
+			return ifNoneMatch.equals(etag);
+		}
+
+		String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+
+		if(ifModifiedSince != null) {
+			try {
+				long since = Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(ifModifiedSince)).toEpochMilli();
+				// http dates only have a resolution of seconds.
+				return modified / 1000 <= since / 1000;
+			}
+			catch(DateTimeParseException e) {
+				return false;
+			}
+		}
+
+		return false;
+	}
+
+	private byte[] writeRoot(final TreeQuery tree) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try(JsonGenerator json = jsonFactory.createGenerator(out)) {
+			json.writeStartObject();
+			writeField(json, tree, "_class", "hudson.model.Hudson");
+			writeField(json, tree, "mode", "NORMAL");
+			writeField(json, tree, "nodeDescription", "the fake master Jenkins node");
+
+			if(tree.includes("jobs")) {
+				TreeQuery jobTree = tree.get("jobs");
+				json.writeArrayFieldStart("jobs");
+
+				for(int project = 0; project < projects; project++) {
+					json.writeStartObject();
+					writeField(json, jobTree, "_class", "org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject");
+					writeField(json, jobTree, "name", getProjectName(project));
+					writeField(json, jobTree, "url", getProjectUrl(project));
+
+					// Jenkins doesn't list the branches in the root resource unless they're asked for explicitly.
+					if(jobTree != TreeQuery.ALL && jobTree.includes("jobs")) {
+						writeBranches(json, project, jobTree.get("jobs"));
+					}
+
+					json.writeEndObject();
+				}
+
+				json.writeEndArray();
+			}
+
+			writeField(json, tree, "url", getBaseUrl());
+			json.writeEndObject();
+		}
+
+		return out.toByteArray();
+	}
+
+	private byte[] writeProject(final int project, final TreeQuery tree) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try(JsonGenerator json = jsonFactory.createGenerator(out)) {
+			json.writeStartObject();
+			writeField(json, tree, "_class", "org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject");
+			writeField(json, tree, "description", "Project number " + project);
+			writeField(json, tree, "displayName", getProjectName(project));
+			writeField(json, tree, "name", getProjectName(project));
+			writeField(json, tree, "url", getProjectUrl(project));
+
+			if(tree.includes("jobs")) {
+				writeBranches(json, project, tree.get("jobs"));
+			}
+
+			json.writeEndObject();
+		}
+
+		return out.toByteArray();
+	}
+
+	private void writeBranches(final JsonGenerator json, final int project, final TreeQuery tree) throws IOException {
+		json.writeArrayFieldStart("jobs");
+
+		for(int branch = 0; branch < branches; branch++) {
+			// branch names are URL encoded, just like the real Jenkins does it.
+			String branchName = branch == 0 ? "master" : "feature%2Fbranch-" + branch;
+
+			json.writeStartObject();
+			writeField(json, tree, "_class", "org.jenkinsci.plugins.workflow.job.WorkflowJob");
+			writeField(json, tree, "name", branchName);
+			writeField(json, tree, "url", getProjectUrl(project) + "job/" + branchName + "/");
+			writeField(json, tree, "color", colors[project][branch]);
+			json.writeEndObject();
+		}
+
+		json.writeEndArray();
+	}
+
+	private void writeField(final JsonGenerator json, final TreeQuery tree, final String name, final String value) throws IOException {
+		if(tree.includes(name)) {
+			json.writeStringField(name, value);
+		}
+	}
+
+	private void send(final HttpExchange exchange, final int status, final byte[] body, final String etag, final long modified)
+			throws IOException {
+		if(etag != null) {
+			exchange.getResponseHeaders().set("ETag", etag);
+			exchange.getResponseHeaders().set("Last-Modified",
+																				DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(modified).atOffset(ZoneOffset.UTC)));
+		}
+
+		if(body == null) {
+			notModified.incrementAndGet();
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+
+		byte[] content = body;
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+		if(acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+			try(GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(body);
+			}
+
+			content = compressed.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+		exchange.sendResponseHeaders(status, content.length);
+
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(content);
+		}
+	}
+
+	private void delay() {
+		int delay = latency + (jitter > 0 ? ThreadLocalRandom.current().nextInt(jitter + 1) : 0);
+
+		if(delay > 0) {
+			try {
+				Thread.sleep(delay);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private synchronized void churn() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long now = System.currentTimeMillis();
+		int changed = 0;
+
+		for(int project = 0; project < projects; project++) {
+			if(random.nextDouble() < churnRate) {
+				String color = COLORS[random.nextInt(COLORS.length)];
+
+				colors[project][random.nextInt(branches)] = random.nextInt(4) == 0 ? color + "_anime" : color;
+				projectModified[project] = now;
+				changed++;
+			}
+		}
+
+		if(changed > 0) {
+			lastModified = now;
+			version++;
+		}
+	}
+
+	private void logStats() {
+		Logger.info(String.format("Served %d requests, %d of them not modified, %d simulated errors.", requests.get(), notModified.get(),
+															errors.get()));
+	}
+
+	private String getBaseUrl() {
+		return "http://localhost:" + port + "/";
+	}
+
+	private String getProjectName(final int project) {
+		return String.format("project-%04d", project);
+	}
+
+	private String getProjectUrl(final int project) {
+		return getBaseUrl() + "job/" + getProjectName(project) + "/";
+	}
+
+	private static String getQueryParameter(final String query, final String name) throws IOException {
+		if(query == null) {
+			return null;
+		}
+
+		for(String parameter : query.split("&")) {
+			String[] pair = parameter.split("=", 2);
+
+			if(pair[0].equals(name)) {
+				return pair.length == 2 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8.name()) : "";
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,102 @@
+package net.bluephod.henkinson.benchmarks.fake;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A parsed <code>tree</code> parameter of the Jenkins API, e.g. <code>jobs[name,color,jobs[name,color]]</code>.
+ * <p>
+ * A tree query names the fields that should be part of the response, and for fields containing objects, the fields of those objects in
+ * brackets. Without a tree query, everything is included - which is what {@link #ALL} stands for.
+ */
+final class TreeQuery {
+	static final TreeQuery ALL = new TreeQuery(null);
+
+	// null means that everything is included.
+	private final Map<String, TreeQuery> fields;
+
+	private TreeQuery(final Map<String, TreeQuery> fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * Parses a tree query.
+	 *
+	 * @param query The query, or null if there is none.
+	 * @return The parsed query.
+	 * @throws IllegalArgumentException If the brackets don't match.
+	 */
+	static TreeQuery parse(String query) {
+		if(query == null || query.isEmpty()) {
+			return ALL;
+		}
+
+		return parseFields(query, new int[] {0}, false);
+	}
+
+	boolean includes(String field) {
+		return fields == null || fields.containsKey(field);
+	}
+
+	/**
+	 * Returns the query for the objects contained in a field.
+	 *
+	 * @param field The field.
+	 * @return The query for the nested objects. If no nested fields were given, that's {@link #ALL}, just like Jenkins does it.
+	 */
+	TreeQuery get(String field) {
+		if(fields == null) {
+			return ALL;
+		}
+
+		TreeQuery nested = fields.get(field);
+
+		return nested == null ? ALL : nested;
+	}
+
+	/**
+	 * Parses a list of fields, up to the closing bracket if it's nested or the end of the query if it isn't.
+	 */
+	private static TreeQuery parseFields(final String query, final int[] position, final boolean nested) {
+		Map<String, TreeQuery> fields = new HashMap<>();
+		StringBuilder name = new StringBuilder();
+
+		while(position[0] < query.length()) {
+			char c = query.charAt(position[0]++);
+
+			if(c == ',') {
+				addField(fields, name, null);
+			}
+			else if(c == '[') {
+				addField(fields, name, parseFields(query, position, true));
+			}
+			else if(c == ']') {
+				if(!nested) {
+					throw new IllegalArgumentException("Unexpected ']' in tree query at position " + (position[0] - 1));
+				}
+
+				addField(fields, name, null);
+				return new TreeQuery(Collections.unmodifiableMap(fields));
+			}
+			else {
+				name.append(c);
+			}
+		}
+
+		if(nested) {
+			throw new IllegalArgumentException("Missing ']' in tree query.");
+		}
+
+		addField(fields, name, null);
+
+		return new TreeQuery(Collections.unmodifiableMap(fields));
+	}
+
+	private static void addField(final Map<String, TreeQuery> fields, final StringBuilder name, final TreeQuery nested) {
+		if(name.length() > 0) {
+			fields.put(name.toString().trim(), nested);
+			name.setLength(0);
+		}
+	}
+}
@@ -1,65 +1,166 @@
 package net.bluephod.henkinson;
 
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
 import com.diozero.api.DigitalOutputDevice;
 import net.bluephod.henkinson.config.Configuration;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Buzzes words in Morse code.
+ * <p>
+ * The buzzing is done by a thread of its own, so {@link #buzzMorse(String)} returns right away and a long word doesn't hold up polling
+ * or rendering. Words are queued and buzzed one after the other. If a word is requested while the same word is still waiting in the
+ * queue, it isn't queued a second time, and if the queue is full, the word is dropped - a buzzer that's still complaining about the
+ * last three broken builds doesn't have to complain about the fourth one as well.
+ * <p>
+ * Each word is turned into a schedule of on and off times once, the GPIO is opened when the morser is created and stays open until
+ * it's {@link #close() closed}.
+ */
+public class BuzzerMorser implements AutoCloseable {
+	private static final int MAX_QUEUED_WORDS = 3;
 
-public class BuzzerMorser {
 	// First 10 elements of Array are the digits. The rest are the letters.
-	private final String[] morseSymbols = new String[] {"-----", ".----", "..---", "...--", "....-",
+	private static final String[] morseSymbols = new String[] {"-----", ".----", "..---", "...--", "....-",
 		".....", "-....", "--...", "---..", "----.",
 		".-", "-...", "-.-.", "-..", ".", "..-.",
 		"--.", "....", "..", ".---", "-.-", ".-..",
 		"--", "-.", "---", ".--.", "--.-", ".-.",
 		"...", "-", "..-", "...-", ".--", "-..-",
 		"-.--", "--.."};
-	private Configuration config;
+
+	private final int ditDuration;
+	private final DigitalOutputDevice buzzer;
+	private final BlockingQueue<String> queue = new LinkedBlockingQueue<>(MAX_QUEUED_WORDS);
+	private final Map<String, int[]> schedules = new ConcurrentHashMap<>();
+	private final Thread thread;
 
 	public BuzzerMorser(final Configuration config) {
-		this.config = config;
+		this.ditDuration = config.getBuzzerDitDuration();
+		this.buzzer = new DigitalOutputDevice(config.getBuzzerGpio());
+
+		thread = new Thread(this::run, "buzzer");
+		thread.setDaemon(true);
+		thread.start();
 	}
 
-	public void buzzMorse(String word) {
-		try(DigitalOutputDevice buzzer = new DigitalOutputDevice(config.getBuzzerGpio())) {
-			for(char ch : word.toUpperCase().toCharArray()) {
-				if(Character.isDigit(ch)) {
-					buzzSymbol(buzzer, morseSymbols[((int) ch) - 48]);
-				}
-				else if(Character.isLetter(ch)) {
-					buzzSymbol(buzzer, morseSymbols[((int) ch) - 55]);
-				}
-				else {
-					buzzPause();
-				}
-			}
+	/**
+	 * Queues a word to be buzzed.
+	 * <p>
+	 * Letters and digits are buzzed, everything else counts as a space between words.
+	 *
+	 * @param word The word.
+	 */
+	public synchronized void buzzMorse(String word) {
+		String normalizedWord = word.toUpperCase();
+
+		if(queue.contains(normalizedWord)) {
+			Logger.debug(String.format("'%s' is already waiting to be buzzed.", normalizedWord));
+			return;
+		}
+
+		if(!queue.offer(normalizedWord)) {
+			Logger.info(String.format("Buzzer is busy, dropping '%s'.", normalizedWord));
 		}
 	}
 
-	private void buzzSymbol(DigitalOutputDevice buzzer, String morseSymbol) {
-		for(char ch : morseSymbol.toCharArray()) {
-			if(ch == '.') {
-				buzzDit(buzzer);
-			}
-			else {
-				buzzDah(buzzer);
-			}
+	/**
+	 * Stops buzzing, even in the middle of a word, and releases the GPIO.
+	 */
+	@Override
+	public void close() {
+		thread.interrupt();
+
+		try {
+			thread.join();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 
-		buzzPause();
+		buzzer.close();
 	}
 
-	private void buzzPause() {
-		HenkinsonUtil.sleep(config.getBuzzerDitDuration());
+	private void run() {
+		try {
+			while(!Thread.currentThread().isInterrupted()) {
+				String word = queue.take();
+				play(schedules.computeIfAbsent(word, key -> compile(key, ditDuration)));
+			}
+		}
+		catch(InterruptedException e) {
+			// that's how we're told to stop.
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			buzzer.off();
+		}
 	}
 
-	private void buzzDit(final DigitalOutputDevice buzzer) {
-		buzzer.on();
-		HenkinsonUtil.sleep(config.getBuzzerDitDuration());
+	private void play(final int[] schedule) throws InterruptedException {
+		for(int i = 0; i < schedule.length; i++) {
+			// even entries are tones, odd ones are the gaps between them.
+			buzzer.setOn(i % 2 == 0);
+			TimeUnit.MILLISECONDS.sleep(schedule[i]);
+		}
+
 		buzzer.off();
 	}
 
-	private void buzzDah(final DigitalOutputDevice buzzer) {
-		buzzer.on();
-		HenkinsonUtil.sleep(config.getBuzzerDitDuration() * 3);
-		buzzer.off();
+	/**
+	 * Turns a word into the times the buzzer has to be on and off.
+	 * <p>
+	 * The timing is the usual one: a dit is one unit, a dah is three, the gap within a letter is one unit, the gap between letters three
+	 * and the gap between words seven. The last gap is kept, so two words buzzed in a row don't run into each other.
+	 *
+	 * @param word The word in upper case.
+	 * @param unit The duration of a dit in ms.
+	 * @return The durations in ms, starting with a tone and alternating between tones and gaps.
+	 */
+	static int[] compile(String word, int unit) {
+		StringBuilder elements = new StringBuilder();
+
+		for(char ch : word.toCharArray()) {
+			if(ch >= '0' && ch <= '9') {
+				elements.append(morseSymbols[ch - '0']).append(' ');
+			}
+			else if(ch >= 'A' && ch <= 'Z') {
+				elements.append(morseSymbols[ch - 'A' + 10]).append(' ');
+			}
+			else {
+				elements.append('/');
+			}
+		}
+
+		// a tone followed by its gap per element.
+		int[] schedule = new int[2 * elements.length()];
+		int length = 0;
+
+		for(int i = 0; i < elements.length(); i++) {
+			char element = elements.charAt(i);
+
+			if(element == '.' || element == '-') {
+				schedule[length++] = element == '.' ? unit : 3 * unit;
+				schedule[length++] = unit;
+			}
+			else if(length > 0) {
+				// the element gap that's already there is part of the letter or word gap.
+				schedule[length - 1] = Math.max(schedule[length - 1], (element == ' ' ? 3 : 7) * unit);
+			}
+			else {
+				// silence at the start of the word is a zero length tone with a gap.
+				schedule[length++] = 0;
+				schedule[length++] = (element == ' ' ? 3 : 7) * unit;
+			}
+		}
+
+		int[] trimmed = new int[length];
+		System.arraycopy(schedule, 0, trimmed, 0, length);
+
+		return trimmed;
 	}
 }
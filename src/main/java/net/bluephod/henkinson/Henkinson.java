@@ -2,23 +2,44 @@ package net.bluephod.henkinson;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 import com.diozero.devices.LED;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.config.ConfigurationReloader;
 import net.bluephod.henkinson.gui.HenkinsonGui;
+import net.bluephod.henkinson.history.StatusHistory;
+import net.bluephod.henkinson.jenkins.FederatedJenkins;
 import net.bluephod.henkinson.jenkins.Jenkins;
 import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import net.bluephod.henkinson.jenkins.KeepAliveJenkinsTransport;
 import net.bluephod.henkinson.jenkins.RemoteJenkins;
-import net.bluephod.henkinson.visualization.VuMeterBuildStatusVisualization;
+import net.bluephod.henkinson.jenkins.StatusChange;
+import net.bluephod.henkinson.jenkins.StatusChangeDetector;
+import net.bluephod.henkinson.jenkins.StatusSnapshot;
+import net.bluephod.henkinson.metrics.MetricsRegistry;
+import net.bluephod.henkinson.metrics.MetricsServer;
+import net.bluephod.henkinson.visualization.BuildStatusVisualization;
+import net.bluephod.henkinson.visualization.CompositorBuildStatusVisualization;
 import org.pmw.tinylog.Logger;
 
 public class Henkinson {
 	private final Configuration config;
+	private final ConfigurationReloader configReloader;
 	private static boolean notInterrupted = true;
 
+	// only used by the update thread.
+	private Jenkins jenkins;
+	private Configuration jenkinsConfig;
+
 	public Henkinson() throws IOException {
-		config = Configuration.getInstance();
+		Path configFile = Configuration.findConfigFile();
+
+		config = Configuration.load(configFile);
+		configReloader = new ConfigurationReloader(configFile, config);
 		Logger.info("Using configuration: \n" + new ObjectMapper().writeValueAsString(config));
 	}
 
@@ -32,8 +53,12 @@ public class Henkinson {
 			notInterrupted = false;
 		}));
 
+		Henkinson henkinson = new Henkinson();
 
-		System.exit(new Henkinson().monitorJenkins());
+		// has to happen before the first connection is made, the JDK only looks at it once.
+		KeepAliveJenkinsTransport.configureConnectionPool(henkinson.config);
+
+		System.exit(henkinson.monitorJenkins());
 	}
 
 	private int monitorJenkins() throws IOException {
@@ -43,11 +68,17 @@ public class Henkinson {
 		}
 
 		HenkinsonGui gui = null;
-		VuMeterBuildStatusVisualization visualization = null;
+		BuildStatusVisualization visualization = null;
 		LED led = null;
 		BuzzerMorser morser = null;
+		MetricsServer metricsServer = null;
+		StatusHistory history = null;
 
 		try {
+			configReloader.start();
+			metricsServer = startMetrics();
+			history = openHistory();
+
 			if(config.isBuzzerEnabled()) {
 				morser = new BuzzerMorser(config);
 				morser.buzzMorse("henkinson");
@@ -65,7 +96,10 @@ public class Henkinson {
 				visualization = startVisualization();
 			}
 
-			startUpdateThread(gui, visualization, morser);
+			StatusSnapshot snapshot = config.getSnapshotFile().isEmpty() ? null : new StatusSnapshot(Paths.get(config.getSnapshotFile()));
+			JenkinsStatus lastKnownStatus = snapshot == null ? null : showSnapshot(snapshot, gui, visualization);
+
+			startUpdateThread(gui, visualization, morser, snapshot, lastKnownStatus, history);
 
 			if(gui != null) {
 				gui.waitForKeypress();
@@ -93,12 +127,52 @@ public class Henkinson {
 			if(led != null) {
 				led.close();
 			}
+
+			if(morser != null) {
+				morser.close();
+			}
+
+			if(metricsServer != null) {
+				metricsServer.close();
+			}
+
+			if(history != null) {
+				history.close();
+			}
+
+			configReloader.close();
 		}
 
 		return 0;
 
 	}
 
+	private MetricsServer startMetrics() throws IOException {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+		if(config.isMetricsJmxEnabled()) {
+			metrics.enableJmx();
+			Logger.info("Metrics registered with JMX");
+		}
+
+		if(config.getMetricsPort() <= 0) {
+			return null;
+		}
+
+		MetricsServer metricsServer = new MetricsServer(metrics, config.getMetricsPort());
+		metricsServer.start();
+
+		return metricsServer;
+	}
+
+	private StatusHistory openHistory() throws IOException {
+		if(config.getHistoryFile().isEmpty()) {
+			return null;
+		}
+
+		return new StatusHistory(Paths.get(config.getHistoryFile()), config.getHistorySampleCapacity(), config.getHistoryTransitionCapacity());
+	}
+
 	private HenkinsonGui startGui() throws IOException {
 		HenkinsonGui gui = new HenkinsonGui(config, this);
 		gui.init();
@@ -108,8 +182,8 @@ public class Henkinson {
 		return gui;
 	}
 
-	private VuMeterBuildStatusVisualization startVisualization() {
-		VuMeterBuildStatusVisualization visualization = new VuMeterBuildStatusVisualization();
+	private BuildStatusVisualization startVisualization() {
+		BuildStatusVisualization visualization = new CompositorBuildStatusVisualization();
 		visualization.init(config, this);
 
 		Logger.info("Visualization initialized");
@@ -140,39 +214,109 @@ public class Henkinson {
 		return finalLed;
 	}
 
-	private void startUpdateThread(final HenkinsonGui gui, final VuMeterBuildStatusVisualization visualization, final BuzzerMorser morser) {
-		Jenkins jenkins = new RemoteJenkins(config);
+	/**
+	 * Shows the status from before the last restart until the first poll is done, which can take quite a while.
+	 *
+	 * @return The status from the snapshot, with all branches marked as stale, or null if there is none.
+	 */
+	private JenkinsStatus showSnapshot(final StatusSnapshot snapshot, final HenkinsonGui gui, final BuildStatusVisualization visualization)
+			throws IOException {
+		JenkinsStatus status = snapshot.load();
+
+		if(status == null) {
+			return null;
+		}
 
-		// start the UI update thread.
-		HenkinsonGui finalGui = gui;
-		VuMeterBuildStatusVisualization finalVisualization = visualization;
-		new Thread(() -> {
-			try {
-				Logger.info("Started Jenkins update thread.");
-				JenkinsStatus oldStatus = null;
-				while(true) {
-					JenkinsStatus status = jenkins.retrieveStatus();
+		if(gui != null) {
+			gui.update(status);
+		}
 
-					if(status.isWorseThan(oldStatus)) {
-						morser.buzzMorse("fuck");
-					}
+		if(visualization != null) {
+			visualization.update(status);
+		}
+
+		return status;
+	}
+
+	private void startUpdateThread(final HenkinsonGui gui, final BuildStatusVisualization visualization, final BuzzerMorser morser,
+			final StatusSnapshot snapshot, final JenkinsStatus lastKnownStatus, final StatusHistory history) {
+		StatusChangeDetector changeDetector = new StatusChangeDetector();
 
-					oldStatus = status;
+		// compared to the snapshot, the first poll only reports what changed while we were gone, and refreshes the stale branches.
+		changeDetector.update(lastKnownStatus);
+		changeDetector.addListener(change -> Logger.debug(change.toString()));
 
-					if(finalGui != null) {
-						finalGui.update(status);
-					}
+		new PollingScheduler(configReloader::get).start(() -> {
+			JenkinsStatus status = getJenkins(configReloader.get()).retrieveStatus();
+			List<StatusChange> changes = changeDetector.update(status);
 
-					if(finalVisualization != null) {
-						finalVisualization.update(status);
-					}
+			if(history != null) {
+				history.append(System.currentTimeMillis(), status, changes);
+			}
 
-					HenkinsonUtil.sleep(config.getPollingInterval());
+			if(changes.isEmpty()) {
+				// nothing to see here, so the strip can stay as it is.
+				if(gui != null) {
+					gui.updateUnchanged(status);
 				}
+
+				return status;
 			}
-			catch(IOException e) {
-				throw new IllegalStateException("Could not update Jenkins status", e);
+
+			Logger.info(String.format("Detected %d changes in the Jenkins status.", changes.size()));
+
+			if(morser != null && changes.stream().anyMatch(StatusChange::isDeterioration)) {
+				morser.buzzMorse("fuck");
 			}
-		}).start();
+
+			if(gui != null) {
+				gui.update(status);
+			}
+
+			if(visualization != null) {
+				visualization.update(status);
+			}
+
+			if(snapshot != null) {
+				saveSnapshot(snapshot, status);
+			}
+
+			return status;
+		});
+	}
+
+	/**
+	 * Returns the Jenkins client for the given configuration.
+	 * <p>
+	 * If the configuration was reloaded since the last poll, a new client is created for it, so changes to the Jenkins settings take effect
+	 * without a restart. That also means starting over with empty caches, but configurations don't change that often.
+	 *
+	 * @param current The current configuration.
+	 * @return The Jenkins client.
+	 * @throws IOException If the old client can't be shut down.
+	 */
+	private Jenkins getJenkins(final Configuration current) throws IOException {
+		if(current != jenkinsConfig) {
+			if(jenkins != null) {
+				Logger.info("Configuration changed, connecting to Jenkins again.");
+				jenkins.close();
+			}
+
+			// several servers are polled in the background, so the update thread merely collects their results.
+			jenkins = current.getServers().isEmpty() ? new RemoteJenkins(current) : new FederatedJenkins(current);
+			jenkinsConfig = current;
+		}
+
+		return jenkins;
+	}
+
+	private void saveSnapshot(final StatusSnapshot snapshot, final JenkinsStatus status) {
+		try {
+			snapshot.save(status);
+		}
+		catch(IOException e) {
+			// not worth failing the poll for, the displays are up to date anyway.
+			Logger.warn(e, "Could not save the status snapshot.");
+		}
 	}
 }
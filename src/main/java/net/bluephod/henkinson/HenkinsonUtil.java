@@ -1,5 +1,9 @@
 package net.bluephod.henkinson;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
 import org.pmw.tinylog.Logger;
 
 public final class HenkinsonUtil {
@@ -15,4 +19,25 @@ public final class HenkinsonUtil {
 			Thread.currentThread().interrupt();
 		}
 	}
+
+	/**
+	 * Performs URL decoding of strings.
+	 * <p>
+	 * Jenkins returns the names of jobs URL encoded. If the argument is <code>null</code>, an empty string will be returned.
+	 *
+	 * @param encoded A URL encoded string.
+	 * @return The decoded string.
+	 */
+	public static String urlDecode(String encoded) {
+		if(encoded == null) {
+			return "";
+		}
+
+		try {
+			return URLDecoder.decode(encoded, StandardCharsets.UTF_8.name());
+		}
+		catch(UnsupportedEncodingException e) {
+			throw new IllegalStateException("Wow, your JDK doesn't support UTF-8. You're fucked.", e);
+		}
+	}
 }
@@ -5,6 +5,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.jenkins.BuildColor;
 import net.bluephod.henkinson.jenkins.Jenkins;
 import net.bluephod.henkinson.jenkins.JenkinsBranchInfo;
 import net.bluephod.henkinson.jenkins.JenkinsStatus;
@@ -21,7 +22,7 @@ public class JenkinsReader {
 	private static Configuration config;
 
 	public static void main(String[] args) throws IOException {
-		config = Configuration.getInstance();
+		config = Configuration.load();
 
 		Configurator.currentConfig()
 				.level(Level.valueOf(config.getLoglevel()))
@@ -35,11 +36,11 @@ public class JenkinsReader {
 		System.out.println("     Problematic branches:");
 
 		List<JenkinsBranchInfo> problematicBranches = new LinkedList<>();
-		problematicBranches.addAll(status.getBranchesWitchColor("yellow"));
-		problematicBranches.addAll(status.getBranchesWitchColor("red"));
+		problematicBranches.addAll(status.getBranchesWithColor(BuildColor.YELLOW));
+		problematicBranches.addAll(status.getBranchesWithColor(BuildColor.RED));
 
 		for(JenkinsBranchInfo info : problematicBranches) {
-			System.out.printf("     [%s] %s (%s)%n", info.getColor(), info.getProjectName(), info.getBranchName());
+			System.out.printf("     [%s] %s (%s)%n", info.getColor().getName(), info.getProjectName(), info.getBranchName());
 		}
 	}
 }
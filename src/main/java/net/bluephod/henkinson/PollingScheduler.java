@@ -0,0 +1,186 @@
+package net.bluephod.henkinson;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import net.bluephod.henkinson.metrics.Counter;
+import net.bluephod.henkinson.metrics.Gauge;
+import net.bluephod.henkinson.metrics.Histogram;
+import net.bluephod.henkinson.metrics.MetricFamily;
+import net.bluephod.henkinson.metrics.MetricsRegistry;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Decides when Jenkins should be polled next and runs the polls.
+ * <p>
+ * The polls are started at a fixed rate, i.e. the time a poll takes is part of the interval instead of being added to it. If a poll
+ * takes longer than the interval, the next one starts right after it - polls never overlap, as there's only one thread running them.
+ * <p>
+ * The interval itself adapts to what's going on:
+ * <ul>
+ *   <li>While builds are running, Jenkins is polled every {@link Configuration#getBurstPollingInterval()} ms, so finished builds show up
+ *   quickly.</li>
+ *   <li>After {@link Configuration#getBackoffThreshold()} polls in a row that didn't find any change, the interval doubles with every
+ *   further unchanged poll until it reaches {@link Configuration#getMaxPollingInterval()}. That's what happens over night.</li>
+ *   <li>Otherwise, {@link Configuration#getPollingInterval()} is used.</li>
+ * </ul>
+ * If there are several {@link Configuration#getServers()}, none of that applies: each of them has a scheduler of its own, and the
+ * scheduler that puts their results together runs every {@link Configuration#getMergeInterval()} ms, so a change is shown as soon as
+ * the server it happened on was polled.
+ * <p>
+ * A failing poll doesn't stop the polling. The error is logged and the next poll is made after the normal polling interval.
+ * <p>
+ * The duration of the polls, the current interval and the number of polls that took longer than their interval are recorded in the
+ * {@link MetricsRegistry}, labelled with the name of the polling thread, so the schedulers of several servers don't mix.
+ */
+public class PollingScheduler {
+	private final Supplier<Configuration> config;
+	private final MetricFamily<Histogram> pollDuration;
+	private final MetricFamily<Gauge> pollInterval;
+	private final MetricFamily<Counter> overdue;
+	private final MetricFamily<Counter> failures;
+
+	private JenkinsStatus lastStatus;
+	private int unchangedPolls;
+
+	public PollingScheduler(final Configuration config) {
+		this(() -> config);
+	}
+
+	/**
+	 * Creates a scheduler whose intervals follow the configuration when it is reloaded.
+	 *
+	 * @param config Supplies the current configuration, which is asked again for every poll.
+	 */
+	public PollingScheduler(final Supplier<Configuration> config) {
+		this.config = config;
+
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		pollDuration = metrics.histograms("henkinson_poll_duration_ms", "Time a poll took, including updating the displays.", "scheduler");
+		pollInterval = metrics.gauges("henkinson_poll_interval_ms", "The current interval between the starts of two polls.", "scheduler");
+		overdue = metrics.counters("henkinson_polls_overdue_total", "Number of polls that took longer than the polling interval.",
+															 "scheduler");
+		failures = metrics.counters("henkinson_polls_failed_total", "Number of polls that failed.", "scheduler");
+	}
+
+	/**
+	 * Starts a thread that runs the given poll over and over again.
+	 *
+	 * @param poll The poll to run.
+	 * @return The polling thread.
+	 */
+	public Thread start(Poll poll) {
+		return start("jenkins-update", poll);
+	}
+
+	/**
+	 * Starts a thread with the given name that runs the given poll over and over again.
+	 *
+	 * @param threadName The name of the polling thread.
+	 * @param poll The poll to run.
+	 * @return The polling thread.
+	 */
+	public Thread start(String threadName, Poll poll) {
+		Histogram threadPollDuration = pollDuration.get(threadName);
+		Gauge threadPollInterval = pollInterval.get(threadName);
+		Counter threadOverdue = overdue.get(threadName);
+		Counter threadFailures = failures.get(threadName);
+
+		Thread thread = new Thread(() -> {
+			Logger.info(String.format("Started Jenkins update thread %s.", threadName));
+
+			while(!Thread.currentThread().isInterrupted()) {
+				long pollStart = System.nanoTime();
+				long interval = runPoll(poll, threadFailures);
+				long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pollStart);
+				long remaining = interval - duration;
+
+				threadPollDuration.record(duration);
+				threadPollInterval.set(interval);
+
+				if(remaining > 0) {
+					Logger.debug(String.format("Next poll in %dms", remaining));
+					HenkinsonUtil.sleep(remaining);
+				}
+				else {
+					threadOverdue.increment();
+					Logger.debug(String.format("Poll took %dms longer than the interval of %dms, polling again right away.", -remaining,
+																		 interval));
+				}
+			}
+
+			Logger.info(String.format("Jenkins update thread %s was interrupted, stopping.", threadName));
+		}, threadName);
+
+		thread.start();
+
+		return thread;
+	}
+
+	private long runPoll(final Poll poll, final Counter failures) {
+		try {
+			return getNextInterval(poll.run());
+		}
+		catch(IOException | RuntimeException e) {
+			// the last status stays on display, maybe Jenkins is back next time.
+			Logger.error(e, "Could not update Jenkins status.");
+			failures.increment();
+			return config.get().getPollingInterval();
+		}
+	}
+
+	/**
+	 * Computes the interval between the start of the poll that returned the given status and the start of the next one.
+	 *
+	 * @param status The status returned by the poll that just finished.
+	 * @return The interval in ms.
+	 */
+	long getNextInterval(JenkinsStatus status) {
+		if(lastStatus != null && lastStatus.equals(status)) {
+			unchangedPolls++;
+		}
+		else {
+			unchangedPolls = 0;
+		}
+
+		lastStatus = status;
+
+		Configuration currentConfig = config.get();
+		int pollingInterval = currentConfig.getPollingInterval();
+
+		if(!currentConfig.getServers().isEmpty()) {
+			return currentConfig.getMergeInterval();
+		}
+
+		if(status.getBuilding() > 0) {
+			return Math.min(pollingInterval, currentConfig.getBurstPollingInterval());
+		}
+
+		int backoffSteps = unchangedPolls - currentConfig.getBackoffThreshold() + 1;
+
+		if(backoffSteps > 0) {
+			// don't let the shift overflow, the cap is reached long before that anyway.
+			long backoffInterval = ((long) pollingInterval) << Math.min(backoffSteps, 30);
+			return Math.max(pollingInterval, Math.min(backoffInterval, currentConfig.getMaxPollingInterval()));
+		}
+
+		return pollingInterval;
+	}
+
+	/**
+	 * A single poll including whatever is done with the result.
+	 */
+	@FunctionalInterface
+	public interface Poll {
+		/**
+		 * Polls Jenkins once.
+		 *
+		 * @return The status that was retrieved.
+		 * @throws IOException If the status couldn't be retrieved.
+		 */
+		JenkinsStatus run() throws IOException;
+	}
+}
@@ -0,0 +1,143 @@
+package net.bluephod.henkinson.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which branches are counted, based on the {@link BranchRule}s of a configuration.
+ * <p>
+ * All patterns are compiled when the filter is created, so an invalid one is noticed when the configuration is loaded and not in the
+ * middle of a poll. The first rule whose project pattern matches a project applies to all of its branches. Which rule that is, is only
+ * worked out once per project and then remembered, so checking a branch only takes matching the branch patterns of that one rule.
+ * <p>
+ * Projects without a matching rule are handled the classic way: only the branch called {@link Configuration#getMasterBranchName()} is
+ * counted, or every branch if {@link Configuration#isIncludeFeatureBranches()} is set.
+ * <p>
+ * Instances are immutable apart from the cache and can be used by several threads at once.
+ */
+public final class BranchFilter {
+	private static final String REGEX_PREFIX = "regex:";
+	private static final String GLOB_PREFIX = "glob:";
+
+	private final List<CompiledRule> rules;
+	private final CompiledRule defaultRule;
+	private final Map<String, CompiledRule> rulesByProject = new ConcurrentHashMap<>();
+
+	/**
+	 * Compiles the branch rules of a configuration.
+	 *
+	 * @param config The configuration.
+	 * @throws IllegalArgumentException If one of the patterns is invalid.
+	 */
+	public BranchFilter(Configuration config) {
+		List<CompiledRule> compiledRules = new ArrayList<>();
+
+		for(BranchRule rule : config.getBranchRules()) {
+			compiledRules.add(new CompiledRule(compile(rule.getProjects()), compile(rule.getInclude()), compile(rule.getExclude())));
+		}
+
+		Pattern all = compile("*");
+		Pattern master = Pattern.compile(Pattern.quote(config.getMasterBranchName()), Pattern.CASE_INSENSITIVE);
+
+		this.rules = Collections.unmodifiableList(compiledRules);
+		this.defaultRule = new CompiledRule(all, Collections.singletonList(config.isIncludeFeatureBranches() ? all : master),
+																				Collections.emptyList());
+	}
+
+	/**
+	 * Tells if a branch is counted.
+	 *
+	 * @param projectName The name of the project.
+	 * @param branchName The URL-decoded name of the branch.
+	 * @return True if the branch is counted.
+	 */
+	public boolean isIncluded(String projectName, String branchName) {
+		return rulesByProject.computeIfAbsent(projectName, this::findRule).matches(branchName);
+	}
+
+	private CompiledRule findRule(final String projectName) {
+		for(CompiledRule rule : rules) {
+			if(rule.projects.matcher(projectName).matches()) {
+				return rule;
+			}
+		}
+
+		return defaultRule;
+	}
+
+	private static List<Pattern> compile(final List<String> patterns) {
+		List<Pattern> compiled = new ArrayList<>(patterns.size());
+
+		for(String pattern : patterns) {
+			compiled.add(compile(pattern));
+		}
+
+		return compiled;
+	}
+
+	/**
+	 * Compiles a glob or a regular expression.
+	 *
+	 * @param pattern A pattern as described in {@link BranchRule}.
+	 * @return The compiled pattern.
+	 * @throws IllegalArgumentException If the pattern is invalid.
+	 */
+	static Pattern compile(String pattern) {
+		if(pattern.startsWith(REGEX_PREFIX)) {
+			return Pattern.compile(pattern.substring(REGEX_PREFIX.length()));
+		}
+
+		String glob = pattern.startsWith(GLOB_PREFIX) ? pattern.substring(GLOB_PREFIX.length()) : pattern;
+		StringBuilder regex = new StringBuilder();
+		int literalStart = 0;
+
+		for(int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+
+			if(c == '*' || c == '?') {
+				if(literalStart < i) {
+					regex.append(Pattern.quote(glob.substring(literalStart, i)));
+				}
+
+				regex.append(c == '*' ? ".*" : ".");
+				literalStart = i + 1;
+			}
+		}
+
+		if(literalStart < glob.length()) {
+			regex.append(Pattern.quote(glob.substring(literalStart)));
+		}
+
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+	}
+
+	private static final class CompiledRule {
+		private final Pattern projects;
+		private final List<Pattern> include;
+		private final List<Pattern> exclude;
+
+		CompiledRule(final Pattern projects, final List<Pattern> include, final List<Pattern> exclude) {
+			this.projects = projects;
+			this.include = include;
+			this.exclude = exclude;
+		}
+
+		boolean matches(final String branchName) {
+			return matchesAny(include, branchName) && !matchesAny(exclude, branchName);
+		}
+
+		private static boolean matchesAny(final List<Pattern> patterns, final String name) {
+			for(Pattern pattern : patterns) {
+				if(pattern.matcher(name).matches()) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
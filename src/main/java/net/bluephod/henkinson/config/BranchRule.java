@@ -0,0 +1,48 @@
+package net.bluephod.henkinson.config;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Decides which branches of some projects are counted, see {@link Configuration#getBranchRules()}.
+ * <p>
+ * All patterns are globs by default, where <code>*</code> stands for any number of characters (slashes included) and <code>?</code> for
+ * a single one, and case doesn't matter. Patterns starting with <code>regex:</code> are Java regular expressions that must match the
+ * whole name, patterns starting with <code>glob:</code> are explicitly globs. So <code>"release/*"</code> and
+ * <code>"regex:release/\\d+\\.\\d+"</code> both work.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BranchRule {
+	/**
+	 * The projects this rule applies to, e.g. "my-org/*". The default applies the rule to all projects.
+	 */
+	@JsonProperty
+	private String projects = "*";
+
+	/**
+	 * The branches that are counted. The default includes all of them.
+	 */
+	@JsonProperty
+	private List<String> include = Collections.singletonList("*");
+
+	/**
+	 * Branches that are left out even though they are included, e.g. "dependabot/*".
+	 */
+	@JsonProperty
+	private List<String> exclude = Collections.emptyList();
+
+	public String getProjects() {
+		return projects;
+	}
+
+	public List<String> getInclude() {
+		return Collections.unmodifiableList(include);
+	}
+
+	public List<String> getExclude() {
+		return Collections.unmodifiableList(exclude);
+	}
+}
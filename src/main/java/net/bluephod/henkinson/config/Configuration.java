@@ -6,11 +6,17 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.pmw.tinylog.Configurator;
 import org.pmw.tinylog.Level;
 import org.pmw.tinylog.Logger;
@@ -31,6 +37,10 @@ import org.pmw.tinylog.writers.FileWriter;
  * The locations are searched in the given order, i.e. if there's one file in /etc and one in your local directory, the one in /etc wins.
  * A sample config file is provided in the etc folder of this repository, so when you run the project from the root directory of the
  * repo, that one will automatically be loaded.
+ * <p>
+ * Instances are immutable snapshots of the config file. They are passed to whoever needs them instead of being looked up globally, and
+ * when the file changes, a {@link ConfigurationReloader} loads a new snapshot instead of changing the existing one, so a poll never sees
+ * half of an old configuration and half of a new one.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Configuration {
@@ -44,13 +54,33 @@ public class Configuration {
 	@JsonProperty
 	private String jenkinsBaseUrl;
 
+	/**
+	 * The Jenkins servers to monitor if there's more than one.
+	 * <p>
+	 * If this list is empty, which is the default, {@link #jenkinsBaseUrl} and the credentials below are used for the one and only
+	 * server. Otherwise, every server in the list is polled on its own, and the project names are prefixed with the name of the server.
+	 */
+	@JsonProperty
+	private List<JenkinsServerConfiguration> servers = Collections.emptyList();
+
+	/**
+	 * The time in ms between two updates of the displays if there are several {@link #servers}.
+	 * <p>
+	 * Every server is polled at its own pace in the background, so an update only puts together what the servers found and costs next to
+	 * nothing. That's why this interval is short and doesn't back off: otherwise a server going red could stay off the display for up to
+	 * {@link #maxPollingInterval} ms although it was polled long before.
+	 */
+	@JsonProperty
+	private int mergeInterval = 500;
+
 	/**
 	 * Number of milliseconds for which Henkinson will wait after starup before attempting to make a http connection.
 	 * <p>
 	 * This can be useful if you experience problems with the boot order of your system, e.g. if you have to wait for some VPN to get
 	 * properly connected before the Jenkins server can be reached.
 	 */
-	@JsonProperty int startDelay = 0;
+	@JsonProperty
+	private int startDelay = 0;
 
 	/**
 	 * If a connection to Jenkins times out, this is the number of retries that will be attempted.
@@ -64,6 +94,41 @@ public class Configuration {
 	@JsonProperty
 	private int connectionRetryDelay = 5000;
 
+	/**
+	 * The number of milliseconds to wait for a connection to the Jenkins server to be established.
+	 */
+	@JsonProperty
+	private int connectTimeout = 5000;
+
+	/**
+	 * The number of milliseconds to wait for data from the Jenkins server once the connection is established.
+	 */
+	@JsonProperty
+	private int readTimeout = 15000;
+
+	/**
+	 * The maximum time in ms that is spent on a single Jenkins resource, including all retries.
+	 * <p>
+	 * If a project can't be retrieved within that time, the poll carries on without it and uses the last known result for that project
+	 * instead, which is marked as stale.
+	 */
+	@JsonProperty
+	private int projectTimeout = 30000;
+
+	/**
+	 * The number of failed requests in a row after which a Jenkins host is considered to be down.
+	 * <p>
+	 * Requests to a host that is down fail right away without even trying until the {@link #circuitBreakerCooldown} is over.
+	 */
+	@JsonProperty
+	private int circuitBreakerThreshold = 5;
+
+	/**
+	 * The time in ms after which a single request is made to a host that is considered to be down, to see if it's back.
+	 */
+	@JsonProperty
+	private int circuitBreakerCooldown = 60000;
+
 	/**
 	 * The user name for authentication against Jenkins.
 	 */
@@ -95,6 +160,15 @@ public class Configuration {
 	@JsonProperty
 	private boolean includeFeatureBranches = false;
 
+	/**
+	 * Rules deciding which branches of which projects are counted, see {@link BranchRule}.
+	 * <p>
+	 * The first rule matching a project applies to it. Projects without a matching rule are handled according to
+	 * {@link #masterBranchName} and {@link #includeFeatureBranches}.
+	 */
+	@JsonProperty
+	private List<BranchRule> branchRules = Collections.emptyList();
+
 	/**
 	 * The log level for output.
 	 *
@@ -114,6 +188,23 @@ public class Configuration {
 	@JsonProperty
 	private boolean stripEnabled = true;
 
+	/**
+	 * Controls if a simulated strip is used instead of a real one.
+	 * <p>
+	 * The simulated strip exists in memory only, so all visualizations can run on a normal PC. Combine it with {@link #stripMirrorEnabled}
+	 * to actually see something.
+	 */
+	@JsonProperty
+	private boolean stripSimulated = false;
+
+	/**
+	 * Controls if the simulated strip is shown as a line of colored blocks in the terminal.
+	 * <p>
+	 * This needs a terminal that supports 24 bit colors and doesn't work together with the GUI.
+	 */
+	@JsonProperty
+	private boolean stripMirrorEnabled = false;
+
 	/**
 	 * Controls if the GUI is shown.
 	 *
@@ -141,14 +232,136 @@ public class Configuration {
 	@JsonProperty int ledInterval = 1000;
 
 	/**
-	 * The pause in ms between polling cycles.
+	 * The time in ms between the starts of two polling cycles.
 	 * <p>
 	 * If this has the default value of 1000, the status will be polled every second. You should be able to figure out everything else by
-	 * yourself.
+	 * yourself. Note that the actual interval is shorter while builds are running and longer if nothing changes for a while, see the
+	 * following options.
 	 */
 	@JsonProperty
 	private int pollingInterval = 1000;
 
+	/**
+	 * The polling interval in ms that is used while at least one build is running.
+	 * <p>
+	 * This makes the Henkinson react quickly when a build finishes. The default is half the default {@link #pollingInterval}. If you
+	 * raise the polling interval, there's no need to touch this one, but if it ends up greater than the polling interval, the polling
+	 * interval is used instead.
+	 */
+	@JsonProperty
+	private int burstPollingInterval = 500;
+
+	/**
+	 * The number of polls in a row without any change after which the polling interval starts to grow.
+	 * <p>
+	 * Every further poll without a change doubles the interval until it reaches {@link #maxPollingInterval}. The first change takes it right
+	 * back to normal.
+	 */
+	@JsonProperty
+	private int backoffThreshold = 3;
+
+	/**
+	 * The upper limit in ms for the polling interval when backing off.
+	 */
+	@JsonProperty
+	private int maxPollingInterval = 60000;
+
+	/**
+	 * The number of multi-branch projects that are retrieved concurrently during a poll.
+	 * <p>
+	 * Every multi-branch project costs an additional http request. With the default of 1, those requests are made one after the other,
+	 * just like they always were. If you have lots of multi-branch projects, set this to something like 8 and a poll will take roughly as
+	 * long as the slowest project instead of the sum of all of them. The resulting status is the same either way.
+	 */
+	@JsonProperty
+	private int fetchParallelism = 1;
+
+	/**
+	 * Controls if the whole job tree is retrieved with a single request.
+	 * <p>
+	 * If this is true, the root resource is requested with a <code>tree</code> query that also includes the branches of all multi-branch
+	 * projects, so a poll normally needs exactly one http request instead of one per project. Projects for which the response doesn't
+	 * contain complete branch information (e.g. because folders are nested deeper than the query covers) are still fetched one by one.
+	 */
+	@JsonProperty
+	private boolean treeQueryEnabled = false;
+
+	/**
+	 * Controls if unchanged Jenkins resources are detected and reused.
+	 * <p>
+	 * If this is true, every request carries the ETag and Last-Modified validators of the previous response for the same URL, and if
+	 * Jenkins answers with "304 Not Modified" or sends exactly the same body as last time, the previously parsed result is reused. Only
+	 * switch this off if your server (or some proxy in between) messes up the validators.
+	 */
+	@JsonProperty
+	private boolean conditionalRequestsEnabled = true;
+
+	/**
+	 * Controls how the JSON returned by Jenkins is decoded.
+	 * <p>
+	 * By default, Jackson deserializes the model classes and the status is computed from those. If this is true, a streaming parser picks
+	 * the few attributes we need right out of the token stream and puts them into the status directly. That creates a lot less garbage,
+	 * which is nice on a Pi Zero where GC pauses can make the animations stutter.
+	 */
+	@JsonProperty
+	private boolean streamingParserEnabled = false;
+
+	/**
+	 * Controls if nested folders are crawled.
+	 * <p>
+	 * By default, only top-level jobs and multi-branch projects are found. If your jobs live in folders or GitHub organization folders,
+	 * enable this. The crawler always uses tree queries and the streaming parser, so {@link #treeQueryEnabled} and
+	 * {@link #streamingParserEnabled} don't matter then, while {@link #fetchParallelism} limits the number of concurrent requests.
+	 */
+	@JsonProperty
+	private boolean crawlerEnabled = false;
+
+	/**
+	 * The number of folder levels the crawler descends into at most.
+	 * <p>
+	 * Top-level jobs are at level 0, so with the default of 5, a job in five nested folders is still found.
+	 */
+	@JsonProperty
+	private int crawlMaxDepth = 5;
+
+	/**
+	 * The time in ms a crawl may take.
+	 * <p>
+	 * After that, no more requests are made during this poll, and the parts of the tree that haven't been visited yet are shown as they
+	 * were in the last poll.
+	 */
+	@JsonProperty
+	private int crawlTimeout = 60000;
+
+	/**
+	 * The file in which the last known status is kept, so it can be shown right away after a restart.
+	 * <p>
+	 * The snapshot is rewritten whenever a poll brings a change. Leave this empty to start without any status after each restart.
+	 */
+	@JsonProperty
+	private String snapshotFile = "./henkinson-status.snapshot";
+
+	/**
+	 * The file in which the history of the status is kept, see {@link net.bluephod.henkinson.history.StatusHistory}.
+	 * <p>
+	 * Nothing reads the history yet, so it's off by default. Set this to e.g. "./henkinson-status.history" to start keeping one.
+	 */
+	@JsonProperty
+	private String historyFile = "";
+
+	/**
+	 * The number of samples of the totals the history remembers. There's one sample per minute no matter how often Jenkins is polled,
+	 * each takes 32 bytes, and the default covers two weeks.
+	 */
+	@JsonProperty
+	private int historySampleCapacity = 20160;
+
+	/**
+	 * The number of times a branch broke or was fixed that the history remembers. Each takes 128 bytes.
+	 */
+	@JsonProperty
+	private int historyTransitionCapacity = 50000;
+
 	/**
 	 * The GPIO pin to which your LED strip is connected.
 	 *
@@ -193,48 +406,197 @@ public class Configuration {
 	@JsonProperty
 	private int pixels = 120;
 
+	/**
+	 * The number of frames per second the strip animations are rendered with.
+	 * <p>
+	 * Animations always take the same time no matter what you put in here, a higher frame rate only makes them smoother. Don't overdo it,
+	 * as every frame has to be pushed out to the strip.
+	 */
+	@JsonProperty
+	private int frameRate = 40;
+
+	/**
+	 * The playlist of visualizations shown on the strip.
+	 * <p>
+	 * Available visualizations are "vumeter" (the classic one) and "branchmap" (one spot per branch). If there's more than one, they take
+	 * turns, see {@link #rotationInterval}.
+	 */
+	@JsonProperty
+	private List<String> visualizations = Collections.singletonList("vumeter");
+
+	/**
+	 * Visualizations that are always shown on top of the playlist.
+	 * <p>
+	 * Right now, there's only "runningbuilds", which shows a light running over the strip while builds are running.
+	 */
+	@JsonProperty
+	private List<String> overlays = Collections.emptyList();
+
+	/**
+	 * The time in ms each visualization of the playlist is shown before the next one takes over.
+	 */
+	@JsonProperty
+	private int rotationInterval = 60000;
+
+	/**
+	 * The time in ms it takes to crossfade from one visualization of the playlist to the next.
+	 */
+	@JsonProperty
+	private int crossfadeDuration = 2000;
+
+	/**
+	 * The port of the http server that serves the metrics as plain text at <code>/metrics</code>.
+	 * <p>
+	 * The default of 0 means there's no such server. The metrics are about poll, request, decoding and frame timings and are meant for
+	 * finding out where the time goes, you don't need them for anything else.
+	 */
+	@JsonProperty
+	private int metricsPort = 0;
+
+	/**
+	 * Controls if the metrics are registered as MBeans, so they can be watched with JConsole or VisualVM.
+	 */
+	@JsonProperty
+	private boolean metricsJmxEnabled = false;
+
 	@JsonIgnore
-	private static Configuration instance;
+	private volatile BranchFilter branchFilter;
 
 	/**
-	 * Returns an instance of this configuration class.
+	 * Finds the config file at the default locations.
 	 *
-	 * This will always be the same instance after the first call, i.e. you're dealing with a Singleton here. Use this method instead of
-	 * the constructor (which must be public because of JSON deserialization) as it will also <i>load</i> the configuration.
-	 *
-	 * @return The initialized configuration object.
-	 * @throws IOException If the configuration can't be loaded for some reason.
+	 * @return The path of the config file.
+	 * @throws FileNotFoundException If there is no config file at any of the locations.
 	 */
-	public static Configuration getInstance() throws IOException {
-		if(instance != null) {
-			return instance;
-		}
-
+	public static Path findConfigFile() throws FileNotFoundException {
 		for(String configLocation : CONFIG_LOCATIONS) {
 			Path configPath = Paths.get(configLocation);
 			if(Files.exists(configPath) && Files.isRegularFile(configPath) && Files.isReadable(configPath)) {
-				try(InputStream in = Files.newInputStream(configPath)) {
-					Logger.info(String.format("Reading configuration from file %s", configPath));
+				return configPath;
+			}
+		}
 
-					instance = new ObjectMapper().readValue(in, Configuration.class);
+		throw new FileNotFoundException("Could not find config file at default locations: " + String.join(", ", CONFIG_LOCATIONS));
+	}
 
-					Configurator.currentConfig()
-							.level(Level.valueOf(instance.getLoglevel()))
-							.writer(new FileWriter(instance.getLogfile()))
-							.activate();
+	/**
+	 * Loads the configuration from the config file at the default locations.
+	 *
+	 * @return A new snapshot of the configuration.
+	 * @throws IOException If the configuration can't be loaded for some reason.
+	 */
+	public static Configuration load() throws IOException {
+		return load(findConfigFile());
+	}
 
-					return instance;
-				}
+	/**
+	 * Loads the configuration from a file and sets up the logging accordingly.
+	 * <p>
+	 * Use this method instead of the constructor (which must be public because of JSON deserialization) as it also checks the
+	 * configuration, e.g. the patterns of the {@link #branchRules}.
+	 *
+	 * @param configPath The config file.
+	 * @return A new snapshot of the configuration.
+	 * @throws IOException If the file can't be read or the configuration in it is invalid.
+	 */
+	public static Configuration load(Path configPath) throws IOException {
+		return load(configPath, false);
+	}
+
+	/**
+	 * Loads the configuration from a file.
+	 *
+	 * @param configPath The config file.
+	 * @param reload If true, the log file is appended to instead of being started anew.
+	 * @return A new snapshot of the configuration.
+	 * @throws IOException If the file can't be read or the configuration in it is invalid.
+	 */
+	static Configuration load(Path configPath, boolean reload) throws IOException {
+		try(InputStream in = Files.newInputStream(configPath)) {
+			Logger.info(String.format("Reading configuration from file %s", configPath));
+
+			Configuration config = new ObjectMapper().readValue(in, Configuration.class);
+
+			try {
+				config.getBranchFilter();
 			}
+			catch(IllegalArgumentException e) {
+				throw new IOException(String.format("Invalid branch rules in %s: %s", configPath, e.getMessage()), e);
+			}
+
+			config.validateServers(configPath);
+
+			Configurator.currentConfig()
+					.level(Level.valueOf(config.getLoglevel()))
+					.writer(new FileWriter(config.getLogfile(), false, reload))
+					.activate();
+
+			return config;
 		}
+	}
 
-		throw new FileNotFoundException("Could not find config file at default locations: " + String.join(", ", CONFIG_LOCATIONS));
+	/**
+	 * Makes sure every server has a name of its own and a URL.
+	 * <p>
+	 * A server without a URL would quietly inherit {@link #jenkinsBaseUrl} in {@link #forServer(JenkinsServerConfiguration)}, so the
+	 * same Jenkins would be polled twice.
+	 */
+	private void validateServers(final Path configPath) throws IOException {
+		Set<String> names = new HashSet<>();
+
+		for(int i = 0; i < servers.size(); i++) {
+			JenkinsServerConfiguration server = servers.get(i);
+
+			if(server.getName() == null || server.getName().trim().isEmpty()) {
+				throw new IOException(String.format("Server %d in %s has no name.", i + 1, configPath));
+			}
+
+			if(!names.add(server.getName())) {
+				throw new IOException(String.format("There's more than one server called \"%s\" in %s.", server.getName(), configPath));
+			}
+
+			if(server.getJenkinsBaseUrl() == null || server.getJenkinsBaseUrl().trim().isEmpty()) {
+				throw new IOException(String.format("Server \"%s\" in %s has no jenkinsBaseUrl.", server.getName(), configPath));
+			}
+		}
 	}
 
 	public String getJenkinsBaseUrl() {
 		return jenkinsBaseUrl;
 	}
 
+	public List<JenkinsServerConfiguration> getServers() {
+		return Collections.unmodifiableList(servers);
+	}
+
+	public int getMergeInterval() {
+		return mergeInterval;
+	}
+
+	/**
+	 * Returns the configuration for one of the {@link #servers}.
+	 * <p>
+	 * The result is a copy of this configuration with everything the server configuration specifies put on top of it, so the classes
+	 * talking to Jenkins don't have to know whether there's one server or several.
+	 *
+	 * @param server The server.
+	 * @return The configuration to use for that server.
+	 */
+	public Configuration forServer(JenkinsServerConfiguration server) {
+		ObjectMapper mapper = new ObjectMapper();
+		ObjectNode merged = mapper.valueToTree(this);
+
+		merged.remove("servers");
+		merged.setAll((ObjectNode) mapper.valueToTree(server));
+
+		try {
+			return mapper.treeToValue(merged, Configuration.class);
+		}
+		catch(JsonProcessingException e) {
+			throw new IllegalArgumentException(String.format("Invalid configuration for Jenkins server %s.", server.getName()), e);
+		}
+	}
+
 	public int getStartDelay() {
 		return startDelay;
 	}
@@ -247,6 +609,26 @@ public class Configuration {
 		return connectionRetryDelay;
 	}
 
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public int getProjectTimeout() {
+		return projectTimeout;
+	}
+
+	public int getCircuitBreakerThreshold() {
+		return circuitBreakerThreshold;
+	}
+
+	public int getCircuitBreakerCooldown() {
+		return circuitBreakerCooldown;
+	}
+
 	public String getUsername() {
 		return username;
 	}
@@ -263,6 +645,25 @@ public class Configuration {
 		return includeFeatureBranches;
 	}
 
+	public List<BranchRule> getBranchRules() {
+		return Collections.unmodifiableList(branchRules);
+	}
+
+	/**
+	 * Returns the filter deciding which branches are counted, compiled from the {@link #branchRules}.
+	 *
+	 * @return The branch filter.
+	 */
+	@JsonIgnore
+	public BranchFilter getBranchFilter() {
+		// compiling it twice in a race doesn't hurt, both filters are the same.
+		if(branchFilter == null) {
+			branchFilter = new BranchFilter(this);
+		}
+
+		return branchFilter;
+	}
+
 	public String getLoglevel() {
 		return loglevel;
 	}
@@ -275,10 +676,46 @@ public class Configuration {
 		return pollingInterval;
 	}
 
+	public int getBurstPollingInterval() {
+		return burstPollingInterval;
+	}
+
+	public int getBackoffThreshold() {
+		return backoffThreshold;
+	}
+
+	public int getMaxPollingInterval() {
+		return maxPollingInterval;
+	}
+
+	public int getFetchParallelism() {
+		return fetchParallelism;
+	}
+
+	public boolean isTreeQueryEnabled() {
+		return treeQueryEnabled;
+	}
+
+	public boolean isConditionalRequestsEnabled() {
+		return conditionalRequestsEnabled;
+	}
+
+	public boolean isStreamingParserEnabled() {
+		return streamingParserEnabled;
+	}
+
 	public boolean isStripEnabled() {
 		return stripEnabled;
 	}
 
+	public boolean isStripSimulated() {
+		return stripSimulated;
+	}
+
+	public boolean isStripMirrorEnabled() {
+		return stripMirrorEnabled;
+	}
+
 	public boolean isGuiEnabled() {
 		return guiEnabled;
 	}
@@ -299,6 +736,62 @@ public class Configuration {
 		return pixels;
 	}
 
+	public int getFrameRate() {
+		return frameRate;
+	}
+
+	public List<String> getVisualizations() {
+		return Collections.unmodifiableList(visualizations);
+	}
+
+	public List<String> getOverlays() {
+		return Collections.unmodifiableList(overlays);
+	}
+
+	public int getRotationInterval() {
+		return rotationInterval;
+	}
+
+	public int getCrossfadeDuration() {
+		return crossfadeDuration;
+	}
+
+	public boolean isCrawlerEnabled() {
+		return crawlerEnabled;
+	}
+
+	public int getCrawlMaxDepth() {
+		return crawlMaxDepth;
+	}
+
+	public int getCrawlTimeout() {
+		return crawlTimeout;
+	}
+
+	public String getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public String getHistoryFile() {
+		return historyFile;
+	}
+
+	public int getHistorySampleCapacity() {
+		return historySampleCapacity;
+	}
+
+	public int getHistoryTransitionCapacity() {
+		return historyTransitionCapacity;
+	}
+
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+
+	public boolean isMetricsJmxEnabled() {
+		return metricsJmxEnabled;
+	}
+
 	public int getLedGpio() {
 		return ledGpio;
 	}
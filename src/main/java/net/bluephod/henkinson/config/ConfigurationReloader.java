@@ -0,0 +1,160 @@
+package net.bluephod.henkinson.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Keeps the configuration up to date with the config file.
+ * <p>
+ * A {@link WatchService} tells a background thread when the file was changed, and that thread loads a new {@link Configuration} and
+ * swaps it in atomically. Whoever needs the configuration calls {@link #get()} at the start of whatever it does and uses that snapshot
+ * until it's done. If the new file can't be loaded, e.g. because of a typo in the JSON, the error is logged and the previous
+ * configuration stays in place.
+ * <p>
+ * Editors tend to save a file in several steps, so the file is only loaded once it hasn't changed for {@link #SETTLE_TIME} ms.
+ * <p>
+ * Not everything can be changed while Henkinson is running: the settings for Jenkins, the polling intervals and the log level are picked
+ * up with the next poll, but everything to do with the hardware, the GUI and the metrics only changes with a restart.
+ */
+public class ConfigurationReloader implements Closeable {
+	/**
+	 * The time in ms the config file must stay unchanged before it is loaded.
+	 */
+	static final long SETTLE_TIME = 500;
+
+	private final Path configFile;
+	private final AtomicReference<Configuration> current;
+	private WatchService watchService;
+
+	/**
+	 * Creates a reloader, which doesn't do anything before {@link #start()} is called.
+	 *
+	 * @param configFile The config file.
+	 * @param initial The configuration loaded from that file at startup.
+	 */
+	public ConfigurationReloader(final Path configFile, final Configuration initial) {
+		this.configFile = configFile.toAbsolutePath();
+		this.current = new AtomicReference<>(initial);
+	}
+
+	/**
+	 * Returns the current configuration.
+	 *
+	 * @return The latest snapshot that was loaded successfully.
+	 */
+	public Configuration get() {
+		return current.get();
+	}
+
+	/**
+	 * Starts watching the config file.
+	 *
+	 * @throws IOException If the directory of the config file can't be watched.
+	 */
+	public synchronized void start() throws IOException {
+		if(watchService != null) {
+			return;
+		}
+
+		// only directories can be watched, so we get to hear about all files next to the config file and filter them out later.
+		watchService = FileSystems.getDefault().newWatchService();
+		configFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		WatchService finalWatchService = watchService;
+		Thread thread = new Thread(() -> watch(finalWatchService), "config-reloader");
+		thread.setDaemon(true);
+		thread.start();
+
+		Logger.info(String.format("Watching %s for changes.", configFile));
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(watchService != null) {
+			watchService.close();
+			watchService = null;
+		}
+	}
+
+	private void watch(final WatchService watchService) {
+		try {
+			while(true) {
+				WatchKey key = watchService.take();
+				boolean changed = pollEvents(key);
+
+				// wait until the file has settled down, every further change starts the wait all over again.
+				while(changed) {
+					WatchKey nextKey = watchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+
+					if(nextKey == null) {
+						reload();
+						break;
+					}
+
+					pollEvents(nextKey);
+				}
+			}
+		}
+		catch(ClosedWatchServiceException e) {
+			Logger.debug("Stopped watching the config file.");
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Takes the events from a key and makes sure it can be signalled again.
+	 *
+	 * @return True if one of the events was about the config file.
+	 */
+	private boolean pollEvents(final WatchKey key) {
+		boolean configFileChanged = false;
+
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(configFile.getFileName().equals(event.context())) {
+				configFileChanged = true;
+			}
+		}
+
+		key.reset();
+
+		return configFileChanged;
+	}
+
+	private void reload() {
+		Configuration previous = current.get();
+		Configuration reloaded;
+
+		try {
+			reloaded = Configuration.load(configFile, true);
+		}
+		catch(IOException | RuntimeException e) {
+			Logger.warn(e, String.format("Could not reload %s, keeping the previous configuration.", configFile));
+			return;
+		}
+
+		ObjectMapper mapper = new ObjectMapper();
+
+		if(mapper.valueToTree(previous).equals(mapper.valueToTree(reloaded))) {
+			Logger.debug("The config file was touched, but nothing changed.");
+			return;
+		}
+
+		current.set(reloaded);
+		Logger.info(String.format("Reloaded configuration from %s. Changes to the hardware, GUI and metrics settings need a restart.",
+															configFile));
+	}
+}
@@ -0,0 +1,98 @@
+package net.bluephod.henkinson.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One of several Jenkins servers that are monitored together, see {@link Configuration#getServers()}.
+ * <p>
+ * Everything that isn't set here is taken from the main configuration, so you only have to specify what's different for this server.
+ * The names of the fields are the same as in the main configuration.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JenkinsServerConfiguration {
+	/**
+	 * A short name for the server, which is put in front of its project names, e.g. "ci" for "ci/my-project". Every server needs a
+	 * name of its own.
+	 */
+	@JsonProperty
+	private String name;
+
+	/**
+	 * The base URL of the Jenkins API of this server, e.g. http://ci.foo/api/json
+	 * <p>
+	 * Unlike the other fields, this one must be set.
+	 */
+	@JsonProperty
+	private String jenkinsBaseUrl;
+
+	/**
+	 * The user name for this server.
+	 */
+	@JsonProperty
+	private String username;
+
+	/**
+	 * The password or token for this server.
+	 */
+	@JsonProperty
+	private String password;
+
+	/**
+	 * The time in ms between two polls of this server, see {@link Configuration#getPollingInterval()}.
+	 */
+	@JsonProperty
+	private Integer pollingInterval;
+
+	/**
+	 * See {@link Configuration#getConnectTimeout()}.
+	 */
+	@JsonProperty
+	private Integer connectTimeout;
+
+	/**
+	 * See {@link Configuration#getReadTimeout()}.
+	 */
+	@JsonProperty
+	private Integer readTimeout;
+
+	/**
+	 * See {@link Configuration#getProjectTimeout()}.
+	 */
+	@JsonProperty
+	private Integer projectTimeout;
+
+	public String getName() {
+		return name;
+	}
+
+	public String getJenkinsBaseUrl() {
+		return jenkinsBaseUrl;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public Integer getPollingInterval() {
+		return pollingInterval;
+	}
+
+	public Integer getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public Integer getReadTimeout() {
+		return readTimeout;
+	}
+
+	public Integer getProjectTimeout() {
+		return projectTimeout;
+	}
+}
@@ -0,0 +1,171 @@
+package net.bluephod.henkinson.gui;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import net.bluephod.henkinson.jenkins.JenkinsBranchInfo;
+
+/**
+ * A scrollable and filterable window onto a list of branches.
+ * <p>
+ * The branches aren't copied. The view keeps the list it got from the {@link net.bluephod.henkinson.jenkins.JenkinsStatus}, which is
+ * already sorted, plus an index of the positions that match the filter. Only the rows in the visible window are ever looked at when
+ * drawing, so it doesn't matter if there are ten branches or ten thousand. The labels are computed once per list, and when the filter
+ * is extended by another character, only the branches that matched before are checked again.
+ */
+final class BranchListView {
+	private final String title;
+
+	private List<JenkinsBranchInfo> branches = Collections.emptyList();
+	private String[] labels = new String[0];
+	private String[] searchKeys = new String[0];
+	private int[] matches = new int[0];
+	private int matchCount;
+	private String filter = "";
+	private int offset;
+	private int height = 1;
+
+	BranchListView(final String title) {
+		this.title = title;
+	}
+
+	/**
+	 * Shows another list of branches, keeping the filter and - as far as possible - the scroll position.
+	 *
+	 * @param branches The branches.
+	 */
+	void setBranches(List<JenkinsBranchInfo> branches) {
+		if(branches == this.branches) {
+			return;
+		}
+
+		this.branches = branches;
+		labels = new String[branches.size()];
+		searchKeys = new String[branches.size()];
+		matches = new int[branches.size()];
+
+		for(int i = 0; i < labels.length; i++) {
+			JenkinsBranchInfo branch = branches.get(i);
+			labels[i] = branch.getBranchName().isEmpty() ? branch.getProjectName() : branch.getProjectName() + " / " + branch.getBranchName();
+			searchKeys[i] = labels[i].toLowerCase(Locale.ROOT);
+		}
+
+		matchAll();
+		scrollTo(offset);
+	}
+
+	/**
+	 * Only shows the branches whose project or branch name contains the given text, ignoring case.
+	 *
+	 * @param filter The text, an empty one shows all branches.
+	 */
+	void setFilter(String filter) {
+		String newFilter = filter.toLowerCase(Locale.ROOT);
+
+		if(newFilter.contains(this.filter)) {
+			// everything that matches now matched before, so there's no need to look at the rest.
+			this.filter = newFilter;
+			narrowMatches();
+		}
+		else {
+			this.filter = newFilter;
+			matchAll();
+		}
+
+		offset = 0;
+	}
+
+	/**
+	 * Sets the number of rows that are visible at a time.
+	 *
+	 * @param height The number of rows.
+	 */
+	void setHeight(int height) {
+		this.height = Math.max(1, height);
+		scrollTo(offset);
+	}
+
+	void scrollBy(int rows) {
+		scrollTo(offset + rows);
+	}
+
+	void pageUp() {
+		scrollBy(-height);
+	}
+
+	void pageDown() {
+		scrollBy(height);
+	}
+
+	void scrollToTop() {
+		scrollTo(0);
+	}
+
+	void scrollToBottom() {
+		scrollTo(matchCount);
+	}
+
+	/**
+	 * Returns the label of a visible row.
+	 *
+	 * @param row The row within the visible window, starting at 0.
+	 * @return The label, or null if the row is past the end of the list.
+	 */
+	String getVisibleLabel(int row) {
+		int match = offset + row;
+
+		return row < height && match < matchCount ? labels[matches[match]] : null;
+	}
+
+	/**
+	 * A line describing the list, e.g. "Red 21-40 of 97 (filter: foo)".
+	 *
+	 * @return The header line.
+	 */
+	String getHeader() {
+		StringBuilder header = new StringBuilder(title);
+
+		if(matchCount == 0) {
+			header.append(" 0");
+		}
+		else {
+			header.append(' ').append(offset + 1).append('-').append(Math.min(offset + height, matchCount));
+		}
+
+		header.append(" of ").append(matchCount);
+
+		if(!filter.isEmpty()) {
+			header.append(" (filter: ").append(filter).append(')');
+		}
+
+		return header.toString();
+	}
+
+	private void scrollTo(final int newOffset) {
+		// the last page is always full, unless the whole list fits on it.
+		offset = Math.max(0, Math.min(newOffset, matchCount - height));
+	}
+
+	private void matchAll() {
+		matchCount = 0;
+
+		for(int i = 0; i < searchKeys.length; i++) {
+			if(searchKeys[i].contains(filter)) {
+				matches[matchCount++] = i;
+			}
+		}
+	}
+
+	private void narrowMatches() {
+		int remaining = 0;
+
+		for(int i = 0; i < matchCount; i++) {
+			if(searchKeys[matches[i]].contains(filter)) {
+				matches[remaining++] = matches[i];
+			}
+		}
+
+		matchCount = remaining;
+	}
+}
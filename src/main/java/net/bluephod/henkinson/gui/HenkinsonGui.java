@@ -4,137 +4,334 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.List;
 
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.graphics.TextGraphics;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.screen.Screen;
+import com.googlecode.lanterna.screen.TerminalScreen;
 import com.googlecode.lanterna.terminal.DefaultTerminalFactory;
-import com.googlecode.lanterna.terminal.Terminal;
 import net.bluephod.henkinson.Henkinson;
 import net.bluephod.henkinson.config.Configuration;
-import net.bluephod.henkinson.jenkins.JenkinsBranchInfo;
+import net.bluephod.henkinson.jenkins.BuildColor;
 import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import net.bluephod.henkinson.visualization.RenderLoop;
 import org.pmw.tinylog.Logger;
 
+/**
+ * The text-based UI showing the yellow and red branches.
+ * <p>
+ * Everything is drawn into the back buffer of a Lanterna {@link Screen}, and only the characters that differ from what's already on the
+ * terminal are sent when the screen is refreshed. That keeps the GUI usable over a slow SSH connection and gets rid of the flicker of
+ * clearing and repainting the whole terminal.
+ * <p>
+ * A small {@link RenderLoop} ticks a few times per second. It picks up terminal resizes, so a user dragging the window around causes
+ * a single redraw instead of one per resize event, and it keeps the clock in the status bar going without touching the project lists.
+ * <p>
+ * The yellow and red branches are shown in two {@link BranchListView}s, so there's no limit to how many of them can be looked at:
+ * <ul>
+ *   <li>Up, Down, Page Up, Page Down, Home and End scroll the selected list.</li>
+ *   <li>Tab, Left and Right switch between the lists.</li>
+ *   <li>Typing filters both lists by project and branch name, Backspace takes back the last character.</li>
+ *   <li>Escape clears the filter, or quits if there's no filter.</li>
+ * </ul>
+ */
 public final class HenkinsonGui implements Closeable {
+	private static final String TITLE = "Henkinson v1.0 - Monitoring Your Builds With Style.";
+	private static final int TICK_RATE = 4;
+
 	private Configuration config;
-	private Terminal terminal;
+	private TerminalScreen screen;
 	private TextGraphics graphics;
 	private TerminalDimensions dimensions;
+	private RenderLoop ticker;
 	private JenkinsStatus currentJenkinsStatus;
 	private Date lastUpdateTime;
+	private String statusText = "";
+	private String clockText = "";
+	private final BranchListView yellowBranches = new BranchListView("Yellow");
+	private final BranchListView redBranches = new BranchListView("Red");
+	private BranchListView selectedBranches = redBranches;
+	private final StringBuilder filter = new StringBuilder();
 	private Henkinson henkinson;
 
 	public HenkinsonGui(Configuration config, Henkinson henkinson) throws IOException {
 		this.config = config;
 		this.henkinson = henkinson;
-		this.terminal = new DefaultTerminalFactory().createTerminal();
-		this.graphics = terminal.newTextGraphics();
+		this.screen = new TerminalScreen(new DefaultTerminalFactory().createTerminal());
+		this.graphics = screen.newTextGraphics();
 	}
 
-	public void init() throws IOException {
-		terminal.enterPrivateMode();
-		terminal.clearScreen();
-		terminal.setCursorVisible(false);
+	public synchronized void init() throws IOException {
+		screen.startScreen();
+		screen.setCursorPosition(null);
 
 		dimensions = getTerminalDimensions();
+		statusText = "Henkinson initialized. Type to filter, arrow keys and Page Up/Down to scroll, Tab to switch lists, Esc to quit.";
 
-		setColorSetting(ColorSetting.DEFAULT);
-		drawTitleBar("Henkinson v1.0 - Monitoring Your Builds With Style.");
-		drawStatusBar("Henkinson initialized.");
-
-		terminal.flush();
+		redraw();
+		screen.refresh(Screen.RefreshType.COMPLETE);
 
-		terminal.addResizeListener((terminal, newSize) -> {
-			try {
-				dimensions = getTerminalDimensions();
-				update(null);
-				terminal.flush();
-			}
-			catch(IOException e) {
-				// Not much we can do here
-				throw new IllegalStateException(e);
-			}
-		});
+		ticker = new RenderLoop("gui-tick", TICK_RATE, frameTimeNanos -> tick());
+		ticker.start();
 	}
 
+	/**
+	 * Handles the keyboard input until the user wants to quit.
+	 */
 	public void waitForKeypress() {
-		if(terminal == null) {
+		if(screen == null) {
 			throw new IllegalStateException("Tried to wait for keypress without an initialized terminal.");
 		}
 
 		try {
-			terminal.readInput();
+			KeyStroke key = screen.readInput();
+
+			while(handleKey(key)) {
+				key = screen.readInput();
+			}
 		}
 		catch(IOException e) {
 			Logger.warn("IO Exception while waiting for keypress");
 		}
 	}
 
-	public void setStatus(String status) throws IOException {
-		drawStatusBar(status);
-		terminal.flush();
+	public synchronized void setStatus(String status) throws IOException {
+		statusText = status;
+
+		drawStatusBar();
+		screen.refresh(Screen.RefreshType.DELTA);
 	}
 
-	public void update(JenkinsStatus status) throws IOException {
+	public synchronized void update(JenkinsStatus status) throws IOException {
 		if(status != null) {
 			currentJenkinsStatus = status;
 			lastUpdateTime = new Date();
 		}
 
-		terminal.clearScreen();
+		redraw();
+		screen.refresh(Screen.RefreshType.DELTA);
+	}
 
-		String updateTime = lastUpdateTime == null ? "n/a" : DateFormat.getDateTimeInstance().format(lastUpdateTime);
+	/**
+	 * Records a poll that didn't change anything.
+	 * <p>
+	 * The project lists are still correct in that case, so only the status bar with the update time is redrawn. The status is still
+	 * passed in, as it may differ in things that don't show up in the lists, like the number of stale branches.
+	 *
+	 * @param status The status that was retrieved.
+	 * @throws IOException If the terminal can't be written to.
+	 */
+	public synchronized void updateUnchanged(JenkinsStatus status) throws IOException {
+		currentJenkinsStatus = status;
+		lastUpdateTime = new Date();
+
+		drawJenkinsStatusBar();
+		screen.refresh(Screen.RefreshType.DELTA);
+	}
 
-		drawTitleBar(("Henkinson v1.0 - Monitoring Your Builds With Style."));
+	public void close() throws IOException {
+		Logger.debug("Shutting down Henkinson GUI.");
 
-		if(currentJenkinsStatus != null) {
-			showProjects(currentJenkinsStatus.getBranchesWitchColor("yellow"),
-									 0,
-									 (dimensions.getColumns() / 2) - 1, ColorSetting.YELLOW);
-			showProjects(currentJenkinsStatus.getBranchesWitchColor("red"),
-									 (dimensions.getColumns() / 2) + 1,
-									 (dimensions.getColumns() / 2) - 1,
-									 ColorSetting.RED);
+		// stopped outside of the lock, as the last tick may still be waiting for it.
+		if(ticker != null) {
+			ticker.stop();
+		}
 
-			drawStatusBar(String.format("Last update: %s, overall status (G/Y/R): %d/%d/%d", updateTime,
-																	currentJenkinsStatus.getGreen(),
-																	currentJenkinsStatus.getYellow(),
-																	currentJenkinsStatus.getRed()));
+		synchronized(this) {
+			if(screen != null) {
+				screen.stopScreen();
+				screen.getTerminal().close();
+			}
 		}
-		else {
-			drawStatusBar("No data loaded yet, please wait.");
+	}
+
+	/**
+	 * Reacts to a key and updates the project lists accordingly.
+	 *
+	 * @return false if the user wants to quit.
+	 */
+	private synchronized boolean handleKey(final KeyStroke key) throws IOException {
+		switch(key.getKeyType()) {
+			case ArrowUp:
+				selectedBranches.scrollBy(-1);
+				break;
+			case ArrowDown:
+				selectedBranches.scrollBy(1);
+				break;
+			case PageUp:
+				selectedBranches.pageUp();
+				break;
+			case PageDown:
+				selectedBranches.pageDown();
+				break;
+			case Home:
+				selectedBranches.scrollToTop();
+				break;
+			case End:
+				selectedBranches.scrollToBottom();
+				break;
+			case Tab:
+			case ReverseTab:
+			case ArrowLeft:
+			case ArrowRight:
+				selectedBranches = selectedBranches == redBranches ? yellowBranches : redBranches;
+				break;
+			case Character:
+				filter.append(key.getCharacter());
+				applyFilter();
+				break;
+			case Backspace:
+				if(filter.length() > 0) {
+					filter.setLength(filter.length() - 1);
+					applyFilter();
+				}
+				break;
+			case Escape:
+				if(filter.length() == 0) {
+					return false;
+				}
+
+				filter.setLength(0);
+				applyFilter();
+				break;
+			case EOF:
+				return false;
+			default:
+				return true;
 		}
 
-		terminal.flush();
+		drawProjectLists();
+		screen.refresh(Screen.RefreshType.DELTA);
+
+		return true;
 	}
 
-	public void close() throws IOException {
-		Logger.debug("Shutting down Henkinson GUI.");
+	private void applyFilter() {
+		yellowBranches.setFilter(filter.toString());
+		redBranches.setFilter(filter.toString());
+	}
+
+	/**
+	 * Handles pending resizes and keeps the clock up to date.
+	 * <p>
+	 * The screen is only refreshed if something was drawn, so an idle GUI doesn't send anything to the terminal.
+	 */
+	private synchronized void tick() {
+		try {
+			TerminalSize newSize = screen.doResizeIfNecessary();
 
-		if(terminal != null) {
-			terminal.exitPrivateMode();
-			terminal.close();
+			if(newSize != null) {
+				dimensions = new TerminalDimensions(newSize);
+				redraw();
+				screen.refresh(Screen.RefreshType.COMPLETE);
+			}
+			else if(drawClock()) {
+				screen.refresh(Screen.RefreshType.DELTA);
+			}
+		}
+		catch(IOException e) {
+			Logger.warn(e, "Could not refresh the GUI.");
+		}
+	}
+
+	private void redraw() {
+		drawTitleBar(TITLE);
+
+		if(currentJenkinsStatus != null) {
+			// the lists are prepared by the status, the views only remember which of them match the filter.
+			yellowBranches.setBranches(currentJenkinsStatus.getBranchesWithColor(BuildColor.YELLOW));
+			redBranches.setBranches(currentJenkinsStatus.getBranchesWithColor(BuildColor.RED));
+		}
+
+		drawProjectLists();
+		drawJenkinsStatusBar();
+	}
+
+	private void drawProjectLists() {
+		// the list area is blanked in the back buffer only, the refresh sends just the cells that really changed.
+		setColorSetting(ColorSetting.DEFAULT);
+		graphics.fillRectangle(new TerminalPosition(0, 1), new TerminalSize(dimensions.getColumns(), Math.max(0, dimensions.getLines() - 2)),
+													 ' ');
+
+		if(currentJenkinsStatus == null) {
+			return;
 		}
+
+		int width = (dimensions.getColumns() / 2) - 1;
+
+		showProjects(yellowBranches, 0, width, ColorSetting.YELLOW);
+		showProjects(redBranches, (dimensions.getColumns() / 2) + 1, width, ColorSetting.RED);
 	}
 
-	private void showProjects(List<JenkinsBranchInfo> branches, int column, int width, ColorSetting colors) {
-		int row = 2;
+	private void showProjects(BranchListView branches, int column, int width, ColorSetting colors) {
+		// the header row is followed by as many branches as fit between it and the status bar.
+		int height = dimensions.getLines() - 3;
+		String marker = branches == selectedBranches ? "> " : "  ";
 
-		for(JenkinsBranchInfo branch : branches) {
-			putTextBlock(column, row++, width, branch.getProjectName(), colors);
+		branches.setHeight(height);
+		putTextBlock(column, 1, width, marker + branches.getHeader(), branches == selectedBranches ? ColorSetting.STATUS : colors);
 
-			if(row > dimensions.getLines() - 2) {
+		for(int row = 0; row < height; row++) {
+			String label = branches.getVisibleLabel(row);
+
+			if(label == null) {
 				break;
 			}
+
+			putTextBlock(column, row + 2, width, label, colors);
 		}
 	}
 
-	private TerminalDimensions getTerminalDimensions() throws IOException {
-		return new TerminalDimensions(terminal.getTerminalSize());
+	private void drawJenkinsStatusBar() {
+		if(currentJenkinsStatus == null) {
+			// whatever was set with setStatus() stays until there's something to report.
+			drawStatusBar();
+			return;
+		}
+
+		String updateTime = lastUpdateTime == null ? "n/a" : DateFormat.getDateTimeInstance().format(lastUpdateTime);
+
+		statusText = String.format("Last update: %s, overall status (G/Y/R): %d/%d/%d", updateTime,
+															 currentJenkinsStatus.getGreen(),
+															 currentJenkinsStatus.getYellow(),
+															 currentJenkinsStatus.getRed());
+
+		if(currentJenkinsStatus.getStale() > 0) {
+			statusText += String.format(", %d stale", currentJenkinsStatus.getStale());
+		}
+
+		drawStatusBar();
+	}
+
+	private TerminalDimensions getTerminalDimensions() {
+		return new TerminalDimensions(screen.getTerminalSize());
 	}
 
-	private void drawStatusBar(String text) {
-		putTextBlock(0, dimensions.getLines() - 1, dimensions.getColumns(), text, ColorSetting.STATUS);
+	private void drawStatusBar() {
+		putTextBlock(0, dimensions.getLines() - 1, dimensions.getColumns(), statusText, ColorSetting.STATUS);
+		clockText = "";
+		drawClock();
+	}
+
+	/**
+	 * Draws the current time at the right end of the status bar.
+	 *
+	 * @return true if the time shown has changed.
+	 */
+	private boolean drawClock() {
+		String time = DateFormat.getTimeInstance().format(new Date());
+
+		if(time.equals(clockText) || time.length() + 1 >= dimensions.getColumns()) {
+			return false;
+		}
+
+		clockText = time;
+		putTextBlock(dimensions.getColumns() - time.length() - 1, dimensions.getLines() - 1, time.length() + 1, " " + time,
+								 ColorSetting.STATUS);
+
+		return true;
 	}
 
 	private void drawTitleBar(String text) {
@@ -151,7 +348,12 @@ public final class HenkinsonGui implements Closeable {
 	}
 
 	private String getTextBlock(String text, int size) {
-		return text.length() > size ? text.substring(0, size - 1) : String.format("%1$-" + size + "s", text);
+		if(size <= 0) {
+			return "";
+		}
+
+		// the whole block is always written, otherwise leftovers of a longer text would stay in the screen buffer.
+		return text.length() > size ? text.substring(0, size) : String.format("%1$-" + size + "s", text);
 	}
 
 	private ColorSetting getColorSetting() {
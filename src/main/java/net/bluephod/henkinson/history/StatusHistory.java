@@ -0,0 +1,450 @@
+package net.bluephod.henkinson.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.bluephod.henkinson.jenkins.BuildColor;
+import net.bluephod.henkinson.jenkins.JenkinsBranchInfo;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import net.bluephod.henkinson.jenkins.StatusChange;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Remembers how the status developed over time, in a memory-mapped file of fixed size.
+ * <p>
+ * Two things are recorded:
+ * <ul>
+ *   <li>The red, yellow and green totals, sampled once a minute no matter how often Jenkins is polled, see
+ *   {@link #getTotals(long, long, long)}. If there are several polls in a minute, the worst of them is kept.</li>
+ *   <li>Every time a branch broke or was fixed, see {@link #getTimeToGreen(long, long)}.</li>
+ * </ul>
+ * Both are kept in ring buffers of fixed-size records, so the file never grows: once a ring is full, the oldest records are overwritten.
+ * The records of each ring are in chronological order, so range queries find their start with a binary search and only look at the
+ * records they need. Everything is read straight from the mapped file, so no history is kept on the heap, and the operating system
+ * decides when the pages are written to disk - there's no write for every poll.
+ * <p>
+ * Timestamps never go backwards. If the clock does, e.g. on a Raspberry Pi without a real-time clock before NTP kicked in, records are
+ * stamped with the time of the previous one instead.
+ * <p>
+ * All methods are synchronized, so the history can be written by the update thread and queried by the GUI at the same time.
+ */
+public class StatusHistory implements Closeable {
+	private static final int MAGIC = 0x484e4b48;
+	private static final int VERSION = 2;
+
+	/**
+	 * The time in ms covered by one sample of the totals.
+	 */
+	static final long SAMPLE_INTERVAL = 60000;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int SAMPLE_COUNT_OFFSET = 16;
+	private static final int TRANSITION_COUNT_OFFSET = 24;
+	private static final int LAST_TIMESTAMP_OFFSET = 32;
+
+	private static final int TOTALS_RECORD_SIZE = 32;
+	private static final int TRANSITION_RECORD_SIZE = 128;
+	private static final int TRANSITION_NAMES_OFFSET = 14;
+	private static final int MAX_NAME_BYTES = TRANSITION_RECORD_SIZE - TRANSITION_NAMES_OFFSET;
+
+	private static final byte NO_COLOR = -1;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int sampleCapacity;
+	private final int transitionCapacity;
+	private final int transitionsOffset;
+
+	private long sampleCount;
+	private long transitionCount;
+	private long lastTimestamp;
+
+	/**
+	 * Opens a history file, creating it if necessary.
+	 * <p>
+	 * If the file was created with different capacities or isn't a history file at all, it is started from scratch.
+	 *
+	 * @param file The file.
+	 * @param sampleCapacity The number of samples of the totals that are kept, one per minute.
+	 * @param transitionCapacity The number of transitions that are kept.
+	 * @throws IOException If the file can't be opened or mapped.
+	 */
+	public StatusHistory(final Path file, final int sampleCapacity, final int transitionCapacity) throws IOException {
+		if(sampleCapacity <= 0 || transitionCapacity <= 0) {
+			throw new IllegalArgumentException("The capacities of the history must be positive.");
+		}
+
+		long size = HEADER_SIZE + (long) sampleCapacity * TOTALS_RECORD_SIZE + (long) transitionCapacity * TRANSITION_RECORD_SIZE;
+
+		if(size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The capacities of the history are too large, the file would exceed 2GB.");
+		}
+
+		this.sampleCapacity = sampleCapacity;
+		this.transitionCapacity = transitionCapacity;
+		this.transitionsOffset = HEADER_SIZE + sampleCapacity * TOTALS_RECORD_SIZE;
+
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			boolean compatible = channel.size() == size;
+
+			if(!compatible) {
+				// mapping grows a file that is too small, but one that is too large has to be cut.
+				channel.truncate(size);
+			}
+
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+			if(compatible && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == sampleCapacity &&
+					buffer.getInt(12) == transitionCapacity) {
+				sampleCount = buffer.getLong(SAMPLE_COUNT_OFFSET);
+				transitionCount = buffer.getLong(TRANSITION_COUNT_OFFSET);
+				lastTimestamp = buffer.getLong(LAST_TIMESTAMP_OFFSET);
+
+				Logger.info(String.format("Opened status history %s with %d samples and %d transitions.", file, getSampleCount(),
+																	getTransitionCount()));
+			}
+			else {
+				Logger.info(String.format("Starting a new status history in %s.", file));
+				initialize();
+			}
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Records the outcome of a poll.
+	 * <p>
+	 * The totals only make it into the history if this is the first poll of the minute or the worst one so far, but every branch that
+	 * broke or was fixed is recorded.
+	 *
+	 * @param timestamp The time of the poll in ms since the epoch.
+	 * @param status The status that was retrieved.
+	 * @param changes The changes compared to the previous poll, of which those that broke or fixed a branch are recorded.
+	 */
+	public synchronized void append(long timestamp, JenkinsStatus status, List<StatusChange> changes) {
+		if(timestamp < lastTimestamp) {
+			Logger.debug(String.format("The clock went back by %dms, using the time of the last record.", lastTimestamp - timestamp));
+			timestamp = lastTimestamp;
+		}
+
+		long sampleStart = timestamp - timestamp % SAMPLE_INTERVAL;
+
+		if(sampleCount > 0 && buffer.getLong(getTotalsPosition(sampleCount - 1)) == sampleStart) {
+			int position = getTotalsPosition(sampleCount - 1);
+			int red = buffer.getInt(position + 8);
+
+			// a sample shows the worst poll of its minute, so a short breakage doesn't get lost.
+			if(status.getRed() > red || (status.getRed() == red && status.getYellow() > buffer.getInt(position + 12))) {
+				writeTotals(position, sampleStart, status);
+			}
+		}
+		else {
+			writeTotals(getTotalsPosition(sampleCount), sampleStart, status);
+
+			// the counts are updated after the records, so a crash in between loses the record instead of leaving a broken one.
+			buffer.putLong(SAMPLE_COUNT_OFFSET, ++sampleCount);
+		}
+
+		for(StatusChange change : changes) {
+			if(isTransition(change)) {
+				appendTransition(timestamp, change);
+			}
+		}
+
+		buffer.putLong(TRANSITION_COUNT_OFFSET, transitionCount);
+		buffer.putLong(LAST_TIMESTAMP_OFFSET, timestamp);
+		lastTimestamp = timestamp;
+	}
+
+	private void writeTotals(final int position, final long sampleStart, final JenkinsStatus status) {
+		buffer.putLong(position, sampleStart);
+		buffer.putInt(position + 8, status.getRed());
+		buffer.putInt(position + 12, status.getYellow());
+		buffer.putInt(position + 16, status.getGreen());
+		buffer.putInt(position + 20, status.getBuilding());
+		buffer.putInt(position + 24, status.getStale());
+	}
+
+	/**
+	 * Puts together the samples of the totals in a time range, e.g. the red count per hour over the last week.
+	 * <p>
+	 * The range is divided into buckets of the given size, starting at <code>from</code>. There's one bucket for every interval, even if
+	 * there were no samples in it, so the result can be drawn as a chart right away.
+	 *
+	 * @param from The start of the range in ms since the epoch, inclusive.
+	 * @param to The end of the range in ms since the epoch, exclusive.
+	 * @param bucketMillis The size of the buckets in ms.
+	 * @return The buckets in chronological order.
+	 */
+	public synchronized List<TotalsBucket> getTotals(long from, long to, long bucketMillis) {
+		if(bucketMillis <= 0) {
+			throw new IllegalArgumentException("The bucket size must be positive.");
+		}
+
+		int buckets = (int) Math.max(0, (to - from + bucketMillis - 1) / bucketMillis);
+		int[] samples = new int[buckets];
+		long[] red = new long[buckets];
+		long[] yellow = new long[buckets];
+		long[] green = new long[buckets];
+		int[] maxRed = new int[buckets];
+
+		for(long i = findFirstSample(from); i < sampleCount; i++) {
+			int position = getTotalsPosition(i);
+			long timestamp = buffer.getLong(position);
+
+			if(timestamp >= to) {
+				break;
+			}
+
+			int bucket = (int) ((timestamp - from) / bucketMillis);
+			int sampleRed = buffer.getInt(position + 8);
+
+			samples[bucket]++;
+			red[bucket] += sampleRed;
+			yellow[bucket] += buffer.getInt(position + 12);
+			green[bucket] += buffer.getInt(position + 16);
+			maxRed[bucket] = Math.max(maxRed[bucket], sampleRed);
+		}
+
+		List<TotalsBucket> result = new ArrayList<>(buckets);
+
+		for(int bucket = 0; bucket < buckets; bucket++) {
+			int n = samples[bucket];
+			result.add(new TotalsBucket(from + bucket * bucketMillis, n, n == 0 ? 0 : (double) red[bucket] / n,
+																	n == 0 ? 0 : (double) yellow[bucket] / n, n == 0 ? 0 : (double) green[bucket] / n, maxRed[bucket]));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Tells how long it took to fix the branches of each project that broke in a time range.
+	 * <p>
+	 * A branch is broken from the moment it went red or yellow until it is green again. Breakages that started in the range are followed
+	 * up to the latest record, so a branch that broke yesterday and was fixed today counts, even if the range ends yesterday. Breakages
+	 * that started before the range are ignored, as well as those of branches that disappeared before they were fixed.
+	 *
+	 * @param from The start of the range in ms since the epoch, inclusive.
+	 * @param to The end of the range in ms since the epoch, exclusive.
+	 * @return The time to green of each project that broke, sorted by project name.
+	 */
+	public synchronized Map<String, TimeToGreen> getTimeToGreen(long from, long to) {
+		Map<String, Long> brokenSince = new HashMap<>();
+		Map<String, TimeToGreen.Collector> projects = new TreeMap<>();
+
+		for(long i = findFirstTransition(from); i < transitionCount; i++) {
+			int position = getTransitionPosition(i);
+			long timestamp = buffer.getLong(position);
+			BuildColor before = decodeColor(buffer.get(position + 8));
+			BuildColor after = decodeColor(buffer.get(position + 9));
+			int projectLength = buffer.getShort(position + 10);
+			String projectName = readName(position + TRANSITION_NAMES_OFFSET, projectLength);
+			String branchKey = projectName + '\n' + readName(position + TRANSITION_NAMES_OFFSET + projectLength, buffer.getShort(position + 12));
+
+			if(isBroken(after) && !isBroken(before)) {
+				if(timestamp < to) {
+					brokenSince.put(branchKey, timestamp);
+				}
+			}
+			else if(!isBroken(after)) {
+				Long since = brokenSince.remove(branchKey);
+
+				if(since != null && after == BuildColor.GREEN) {
+					projects.computeIfAbsent(projectName, TimeToGreen.Collector::new).addRecovery(timestamp - since);
+				}
+			}
+		}
+
+		for(Map.Entry<String, Long> broken : brokenSince.entrySet()) {
+			String projectName = broken.getKey().substring(0, broken.getKey().indexOf('\n'));
+			projects.computeIfAbsent(projectName, TimeToGreen.Collector::new).addOpenBreakage(broken.getValue());
+		}
+
+		Map<String, TimeToGreen> result = new TreeMap<>();
+
+		for(Map.Entry<String, TimeToGreen.Collector> project : projects.entrySet()) {
+			result.put(project.getKey(), project.getValue().build());
+		}
+
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * The number of samples of the totals in the history.
+	 *
+	 * @return The number of samples that can be queried, which is at most the sample capacity.
+	 */
+	public synchronized int getSampleCount() {
+		return (int) Math.min(sampleCount, sampleCapacity);
+	}
+
+	/**
+	 * The number of transitions in the history.
+	 *
+	 * @return The number of transitions that can be queried, which is at most the transition capacity.
+	 */
+	public synchronized int getTransitionCount() {
+		return (int) Math.min(transitionCount, transitionCapacity);
+	}
+
+	/**
+	 * Writes everything to disk and closes the file.
+	 *
+	 * @throws IOException If the file can't be closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		buffer.force();
+		channel.close();
+	}
+
+	private void initialize() {
+		for(int i = 0; i < HEADER_SIZE; i++) {
+			buffer.put(i, (byte) 0);
+		}
+
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, sampleCapacity);
+		buffer.putInt(12, transitionCapacity);
+
+		sampleCount = 0;
+		transitionCount = 0;
+		lastTimestamp = 0;
+	}
+
+	/**
+	 * Tells if a change broke or fixed a branch, which is all the time to green needs.
+	 */
+	private static boolean isTransition(final StatusChange change) {
+		switch(change.getType()) {
+			case WENT_RED:
+			case WENT_YELLOW:
+			case RECOVERED:
+				return true;
+			case APPEARED:
+				return isBroken(change.getAfter().getColor());
+			case DISAPPEARED:
+				return isBroken(change.getBefore().getColor());
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isBroken(final BuildColor color) {
+		return color == BuildColor.RED || color == BuildColor.YELLOW;
+	}
+
+	private void appendTransition(final long timestamp, final StatusChange change) {
+		JenkinsBranchInfo branch = change.getBranch();
+		byte[] projectName = truncate(branch.getProjectName().getBytes(StandardCharsets.UTF_8), MAX_NAME_BYTES);
+		byte[] branchName = truncate(branch.getBranchName().getBytes(StandardCharsets.UTF_8), MAX_NAME_BYTES - projectName.length);
+		int position = getTransitionPosition(transitionCount);
+
+		buffer.putLong(position, timestamp);
+		buffer.put(position + 8, encodeColor(change.getBefore()));
+		buffer.put(position + 9, encodeColor(change.getAfter()));
+		buffer.putShort(position + 10, (short) projectName.length);
+		buffer.putShort(position + 12, (short) branchName.length);
+
+		ByteBuffer names = buffer.duplicate();
+		names.position(position + TRANSITION_NAMES_OFFSET);
+		names.put(projectName);
+		names.put(branchName);
+
+		transitionCount++;
+	}
+
+	/**
+	 * Cuts a UTF-8 encoded name to the given length without splitting a character.
+	 */
+	private static byte[] truncate(final byte[] name, final int maxLength) {
+		if(name.length <= maxLength) {
+			return name;
+		}
+
+		int length = maxLength;
+
+		while(length > 0 && (name[length] & 0xc0) == 0x80) {
+			length--;
+		}
+
+		byte[] truncated = new byte[length];
+		System.arraycopy(name, 0, truncated, 0, length);
+
+		return truncated;
+	}
+
+	private String readName(final int position, final int length) {
+		byte[] name = new byte[length];
+		ByteBuffer names = buffer.duplicate();
+		names.position(position);
+		names.get(name);
+
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	private static byte encodeColor(final JenkinsBranchInfo branch) {
+		return branch == null ? NO_COLOR : (byte) branch.getColor().ordinal();
+	}
+
+	private static BuildColor decodeColor(final byte color) {
+		return color == NO_COLOR ? null : BuildColor.values()[color];
+	}
+
+	private long findFirstSample(final long from) {
+		return findFirst(from, sampleCount, sampleCapacity, HEADER_SIZE, TOTALS_RECORD_SIZE);
+	}
+
+	private long findFirstTransition(final long from) {
+		return findFirst(from, transitionCount, transitionCapacity, transitionsOffset, TRANSITION_RECORD_SIZE);
+	}
+
+	/**
+	 * Finds the oldest record of a ring that isn't older than the given time.
+	 *
+	 * @return The index of that record, counting all records ever written, or the count if there is none.
+	 */
+	private long findFirst(final long from, final long count, final int capacity, final int offset, final int recordSize) {
+		long low = Math.max(0, count - capacity);
+		long high = count;
+
+		while(low < high) {
+			long middle = (low + high) >>> 1;
+
+			if(buffer.getLong(offset + (int) (middle % capacity) * recordSize) < from) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	private int getTotalsPosition(final long index) {
+		return HEADER_SIZE + (int) (index % sampleCapacity) * TOTALS_RECORD_SIZE;
+	}
+
+	private int getTransitionPosition(final long index) {
+		return transitionsOffset + (int) (index % transitionCapacity) * TRANSITION_RECORD_SIZE;
+	}
+}
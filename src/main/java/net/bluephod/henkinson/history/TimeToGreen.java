@@ -0,0 +1,103 @@
+package net.bluephod.henkinson.history;
+
+/**
+ * How long it took to fix the broken branches of a project, as returned by {@link StatusHistory#getTimeToGreen(long, long)}.
+ * <p>
+ * Instances are immutable.
+ */
+public final class TimeToGreen {
+	private final String projectName;
+	private final int recoveries;
+	private final long averageMillis;
+	private final long maxMillis;
+	private final long brokenSince;
+
+	public TimeToGreen(final String projectName, final int recoveries, final long averageMillis, final long maxMillis,
+			final long brokenSince) {
+		this.projectName = projectName;
+		this.recoveries = recoveries;
+		this.averageMillis = averageMillis;
+		this.maxMillis = maxMillis;
+		this.brokenSince = brokenSince;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	/**
+	 * The number of times a branch of the project went from red or yellow back to green.
+	 *
+	 * @return The number of recoveries.
+	 */
+	public int getRecoveries() {
+		return recoveries;
+	}
+
+	/**
+	 * The average time from a branch breaking until it was green again.
+	 *
+	 * @return The average time in ms, or 0 if there were no recoveries.
+	 */
+	public long getAverageMillis() {
+		return averageMillis;
+	}
+
+	/**
+	 * The longest time from a branch breaking until it was green again.
+	 *
+	 * @return The maximum time in ms, or 0 if there were no recoveries.
+	 */
+	public long getMaxMillis() {
+		return maxMillis;
+	}
+
+	/**
+	 * Tells since when the project has a branch that is still broken.
+	 *
+	 * @return The time in ms since the epoch at which the oldest branch that is still broken broke, or -1 if everything was fixed.
+	 */
+	public long getBrokenSince() {
+		return brokenSince;
+	}
+
+	@Override
+	public String toString() {
+		return "TimeToGreen{" +
+				"projectName='" + projectName + '\'' +
+				", recoveries=" + recoveries +
+				", averageMillis=" + averageMillis +
+				", maxMillis=" + maxMillis +
+				", brokenSince=" + brokenSince +
+				'}';
+	}
+
+	/**
+	 * Adds up the recoveries of a project while the history is scanned.
+	 */
+	static final class Collector {
+		private final String projectName;
+		private int recoveries;
+		private long totalMillis;
+		private long maxMillis;
+		private long brokenSince = -1;
+
+		Collector(final String projectName) {
+			this.projectName = projectName;
+		}
+
+		void addRecovery(long millis) {
+			recoveries++;
+			totalMillis += millis;
+			maxMillis = Math.max(maxMillis, millis);
+		}
+
+		void addOpenBreakage(long since) {
+			brokenSince = brokenSince < 0 ? since : Math.min(brokenSince, since);
+		}
+
+		TimeToGreen build() {
+			return new TimeToGreen(projectName, recoveries, recoveries == 0 ? 0 : totalMillis / recoveries, maxMillis, brokenSince);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package net.bluephod.henkinson.history;
+
+/**
+ * The totals of all samples in a time interval, as returned by {@link StatusHistory#getTotals(long, long, long)}.
+ * <p>
+ * Instances are immutable.
+ */
+public final class TotalsBucket {
+	private final long start;
+	private final int samples;
+	private final double red;
+	private final double yellow;
+	private final double green;
+	private final int maxRed;
+
+	public TotalsBucket(final long start, final int samples, final double red, final double yellow, final double green, final int maxRed) {
+		this.start = start;
+		this.samples = samples;
+		this.red = red;
+		this.yellow = yellow;
+		this.green = green;
+		this.maxRed = maxRed;
+	}
+
+	/**
+	 * The start of the interval.
+	 *
+	 * @return The start in ms since the epoch.
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * The number of samples in the interval. If this is 0, nothing is known about the interval and all counts are 0.
+	 *
+	 * @return The number of samples.
+	 */
+	public int getSamples() {
+		return samples;
+	}
+
+	/**
+	 * The average number of red branches in the samples of the interval.
+	 *
+	 * @return The average red count.
+	 */
+	public double getRed() {
+		return red;
+	}
+
+	/**
+	 * The average number of yellow branches in the samples of the interval.
+	 *
+	 * @return The average yellow count.
+	 */
+	public double getYellow() {
+		return yellow;
+	}
+
+	/**
+	 * The average number of green branches in the samples of the interval.
+	 *
+	 * @return The average green count.
+	 */
+	public double getGreen() {
+		return green;
+	}
+
+	/**
+	 * The highest number of red branches in any sample of the interval, i.e. how bad it got.
+	 *
+	 * @return The maximum red count.
+	 */
+	public int getMaxRed() {
+		return maxRed;
+	}
+
+	@Override
+	public String toString() {
+		return "TotalsBucket{" +
+				"start=" + start +
+				", samples=" + samples +
+				", red=" + red +
+				", yellow=" + yellow +
+				", green=" + green +
+				", maxRed=" + maxRed +
+				'}';
+	}
+}
@@ -0,0 +1,70 @@
+package net.bluephod.henkinson.jenkins;
+
+/**
+ * The simplified build status of a branch.
+ * <p>
+ * Jenkins knows a whole bunch of ball colors (see <a href="https://javadoc.jenkins-ci.org/hudson/model/BallColor.html">BallColor</a>),
+ * but all we care about is whether a branch is green, yellow or red. Everything else (grey, disabled, aborted, not built) ends up as
+ * {@link #UNKNOWN} and isn't counted.
+ */
+public enum BuildColor {
+	GREEN("green"),
+	YELLOW("yellow"),
+	RED("red"),
+	UNKNOWN("unknown");
+
+	private final String name;
+
+	BuildColor(final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * The lower case name of the color, e.g. "green".
+	 *
+	 * @return The name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Converts a color as returned by Jenkins into a build color.
+	 * <p>
+	 * The "_anime" suffix Jenkins uses for running builds is ignored, so "red_anime" is {@link #RED}.
+	 *
+	 * @param jenkinsColor The color from the Jenkins API.
+	 * @return The corresponding build color.
+	 */
+	public static BuildColor fromJenkinsColor(String jenkinsColor) {
+		switch(jenkinsColor) {
+			case "blue":
+			case "blue_anime":
+				return GREEN;
+			case "yellow":
+			case "yellow_anime":
+				return YELLOW;
+			case "red":
+			case "red_anime":
+				return RED;
+			default:
+				return UNKNOWN;
+		}
+	}
+
+	/**
+	 * Returns the build color with the given name.
+	 *
+	 * @param name A name as returned by {@link #getName()}.
+	 * @return The build color or {@link #UNKNOWN} if there is none with that name.
+	 */
+	public static BuildColor forName(String name) {
+		for(BuildColor color : values()) {
+			if(color.name.equals(name)) {
+				return color;
+			}
+		}
+
+		return UNKNOWN;
+	}
+}
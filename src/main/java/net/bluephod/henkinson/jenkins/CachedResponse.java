@@ -0,0 +1,54 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * What we remember about the last response for a given URL.
+ * <p>
+ * That's the validators Jenkins sent along (if any), a hash of the body and the object that was deserialized from it. Instances are
+ * immutable, so the deserialized object can safely be handed out again and again as long as nothing changes on the server.
+ */
+final class CachedResponse {
+	private final String etag;
+	private final String lastModified;
+	private final byte[] bodyHash;
+	private final Object value;
+
+	CachedResponse(final String etag, final String lastModified, final byte[] bodyHash, final Object value) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.bodyHash = bodyHash;
+		this.value = value;
+	}
+
+	String getEtag() {
+		return etag;
+	}
+
+	String getLastModified() {
+		return lastModified;
+	}
+
+	<T> T getValue(Class<T> type) {
+		return type.cast(value);
+	}
+
+	boolean hasBody(byte[] otherBodyHash) {
+		return Arrays.equals(bodyHash, otherBodyHash);
+	}
+
+	CachedResponse withValidators(final String newEtag, final String newLastModified) {
+		return new CachedResponse(newEtag, newLastModified, bodyHash, value);
+	}
+
+	static byte[] hash(byte[] body) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(body);
+		}
+		catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Your JDK doesn't support SHA-256, which it is required to do.", e);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * A circuit breaker for requests to a single host.
+ * <p>
+ * If a host fails a number of times in a row, there's no point in hammering it with more requests (and in waiting for all of them to
+ * time out), so the breaker "opens" and lets requests fail right away for a while. After that cooldown, a single request is let through
+ * to see if the host is back. If it succeeds, everything is back to normal, otherwise the breaker stays open for another cooldown.
+ */
+final class CircuitBreaker {
+	private final String host;
+	private final int failureThreshold;
+	private final long cooldownNanos;
+
+	private int consecutiveFailures;
+	private long retryAt;
+
+	CircuitBreaker(final String host, final int failureThreshold, final long cooldownMillis) {
+		this.host = host;
+		this.failureThreshold = failureThreshold;
+		this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+	}
+
+	/**
+	 * Checks if a request to the host may be made right now.
+	 *
+	 * @return True if the breaker is closed or the cooldown is over and a trial request may be made.
+	 */
+	synchronized boolean allowRequest() {
+		if(consecutiveFailures < failureThreshold) {
+			return true;
+		}
+
+		long now = System.nanoTime();
+
+		if(now - retryAt >= 0) {
+			// let exactly one trial request through, everybody else keeps failing fast until it's done.
+			retryAt = now + cooldownNanos;
+			return true;
+		}
+
+		return false;
+	}
+
+	synchronized void recordSuccess() {
+		if(consecutiveFailures >= failureThreshold) {
+			Logger.info(String.format("Host %s is reachable again, closing circuit.", host));
+		}
+
+		consecutiveFailures = 0;
+	}
+
+	synchronized void recordFailure() {
+		consecutiveFailures++;
+
+		if(consecutiveFailures == failureThreshold) {
+			Logger.warn(String.format("Host %s failed %d times in a row, opening circuit for %dms.", host, consecutiveFailures,
+																TimeUnit.NANOSECONDS.toMillis(cooldownNanos)));
+			retryAt = System.nanoTime() + cooldownNanos;
+		}
+	}
+}
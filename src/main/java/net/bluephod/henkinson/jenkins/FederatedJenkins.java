@@ -0,0 +1,182 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.bluephod.henkinson.PollingScheduler;
+import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.config.JenkinsServerConfiguration;
+import org.pmw.tinylog.Logger;
+
+/**
+ * A Jenkins driver for several Jenkins servers at once.
+ * <p>
+ * Every server from {@link Configuration#getServers()} gets a {@link RemoteJenkins} and a {@link PollingScheduler} of its own, with its
+ * own credentials, timeouts and polling interval. Those run in the background, and {@link #retrieveStatus()} only puts together the
+ * latest status of every server, so it returns right away and a slow server doesn't hold back the others. The project names are prefixed
+ * with the name of the server, e.g. <code>ci/my-project</code>.
+ * <p>
+ * If the last poll of a server failed, its last known status is used and marked as stale. A server that never answered simply doesn't
+ * show up.
+ */
+public class FederatedJenkins implements Jenkins {
+	private final Configuration config;
+	private final List<Server> servers = new ArrayList<>();
+	private final List<Thread> pollingThreads = new ArrayList<>();
+	private boolean started;
+
+	public FederatedJenkins(Configuration config) {
+		this.config = config;
+
+		for(JenkinsServerConfiguration serverConfig : config.getServers()) {
+			servers.add(new Server(serverConfig.getName(), config.forServer(serverConfig)));
+		}
+	}
+
+	/**
+	 * Merges the latest status of every server.
+	 * <p>
+	 * The first call starts polling the servers and waits until each of them has answered or failed once, but not longer than
+	 * {@link Configuration#getProjectTimeout()} ms, so there's something to show right from the start.
+	 *
+	 * @return The status of all servers.
+	 * @throws IOException If none of the servers could be polled successfully so far.
+	 */
+	@Override
+	public JenkinsStatus retrieveStatus() throws IOException {
+		if(startPolling()) {
+			awaitFirstPolls();
+		}
+
+		JenkinsStatus.Builder status = new JenkinsStatus.Builder();
+		boolean anyStatus = false;
+
+		for(Server server : servers) {
+			JenkinsStatus serverStatus = server.getStatus();
+
+			if(serverStatus != null) {
+				status.addAll(serverStatus, server.getName() + "/", server.isFailing());
+				anyStatus = true;
+			}
+		}
+
+		if(!anyStatus) {
+			throw new IOException("None of the Jenkins servers could be polled so far.");
+		}
+
+		return status.build();
+	}
+
+	/**
+	 * Starts polling the servers unless that already happened.
+	 *
+	 * @return true if polling was started by this call.
+	 */
+	private synchronized boolean startPolling() {
+		if(started) {
+			return false;
+		}
+
+		for(Server server : servers) {
+			pollingThreads.add(new PollingScheduler(server.getConfig()).start("jenkins-update-" + server.getName(), server::poll));
+		}
+
+		started = true;
+
+		return true;
+	}
+
+	/**
+	 * Stops polling the servers.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		for(Thread thread : pollingThreads) {
+			thread.interrupt();
+		}
+
+		for(Server server : servers) {
+			server.close();
+		}
+	}
+
+	private void awaitFirstPolls() throws InterruptedIOException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getProjectTimeout());
+
+		try {
+			for(Server server : servers) {
+				if(!server.awaitFirstPoll(deadline - System.nanoTime())) {
+					Logger.warn(String.format("Jenkins server %s didn't answer in time, carrying on without it for now.", server.getName()));
+				}
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the Jenkins servers.");
+		}
+	}
+
+	/**
+	 * A single server and what we know about it.
+	 */
+	private static final class Server {
+		private final String name;
+		private final Configuration config;
+		private final Jenkins jenkins;
+		private final CountDownLatch firstPoll = new CountDownLatch(1);
+
+		private volatile JenkinsStatus status;
+		private volatile boolean failing;
+
+		Server(final String name, final Configuration config) {
+			this.name = name;
+			this.config = config;
+			this.jenkins = new RemoteJenkins(config);
+		}
+
+		JenkinsStatus poll() throws IOException {
+			try {
+				JenkinsStatus newStatus = jenkins.retrieveStatus();
+				status = newStatus;
+				failing = false;
+
+				return newStatus;
+			}
+			catch(IOException | RuntimeException e) {
+				failing = true;
+				throw e;
+			}
+			finally {
+				firstPoll.countDown();
+			}
+		}
+
+		boolean awaitFirstPoll(long timeoutNanos) throws InterruptedException {
+			return firstPoll.await(timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+
+		String getName() {
+			return name;
+		}
+
+		Configuration getConfig() {
+			return config;
+		}
+
+		JenkinsStatus getStatus() {
+			return status;
+		}
+
+		boolean isFailing() {
+			return failing;
+		}
+
+		void close() throws IOException {
+			jenkins.close();
+		}
+	}
+}
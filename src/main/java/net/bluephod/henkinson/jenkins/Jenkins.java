@@ -1,5 +1,6 @@
 package net.bluephod.henkinson.jenkins;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
 
@@ -10,14 +11,24 @@ import java.util.Map;
  * hadn't written the code for accessing a real server. This might be useful for you if you just want to test the LED stuff without
  * having a Jenkins server available.
  */
-public interface Jenkins {
+public interface Jenkins extends Closeable {
 	/**
 	 * Connects to the Jenkins server and retrieves the overall build status.
 	 *
-	 * Note that only branches called "master" will be included in the stats. It doesn't seem sensible to include feature branches.
+	 * Which branches are included in the stats is decided by {@link net.bluephod.henkinson.config.Configuration#getBranchFilter()}. By
+	 * default, that's only the ones called "master", as it doesn't seem sensible to include feature branches.
 	 *
-	 * @return The build status for the master branches that are currently present on the server.
+	 * @return The build status for the branches that are currently present on the server.
 	 * @throws IOException If something goes wrong, either in the http request or during the deserialization of API objects.
 	 */
 	JenkinsStatus retrieveStatus() throws IOException;
+
+	/**
+	 * Stops whatever is running in the background, e.g. when the configuration was reloaded and a new instance takes over.
+	 *
+	 * @throws IOException If something can't be shut down properly.
+	 */
+	@Override
+	default void close() throws IOException {
+	}
 }
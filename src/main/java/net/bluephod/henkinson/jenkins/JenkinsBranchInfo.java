@@ -1,20 +1,34 @@
 package net.bluephod.henkinson.jenkins;
 
-public class JenkinsBranchInfo {
-	private String projectName;
-	private String branchName;
-	private String color;
+import java.util.Objects;
 
-	/**
-	 * Only to be used for JSON deserialization.
-	 */
-	public JenkinsBranchInfo() {
+/**
+ * The status of a single branch.
+ * <p>
+ * Instances are immutable.
+ */
+public final class JenkinsBranchInfo {
+	private final String projectName;
+	private final String branchName;
+	private final BuildColor color;
+	private final boolean building;
+	private final boolean stale;
+
+	public JenkinsBranchInfo(final String projectName, final String branchName, final BuildColor color) {
+		this(projectName, branchName, color, false);
 	}
 
-	public JenkinsBranchInfo(final String projectName, final String branchName, final String color) {
+	public JenkinsBranchInfo(final String projectName, final String branchName, final BuildColor color, final boolean building) {
+		this(projectName, branchName, color, building, false);
+	}
+
+	public JenkinsBranchInfo(final String projectName, final String branchName, final BuildColor color, final boolean building,
+			final boolean stale) {
 		this.projectName = projectName;
 		this.branchName = branchName;
 		this.color = color;
+		this.building = building;
+		this.stale = stale;
 	}
 
 	public String getProjectName() {
@@ -25,16 +39,71 @@ public class JenkinsBranchInfo {
 		return branchName;
 	}
 
-	public String getColor() {
+	public BuildColor getColor() {
 		return color;
 	}
 
+	/**
+	 * Returns true if a build was running for this branch when the status was retrieved.
+	 * <p>
+	 * Jenkins signals that by appending "_anime" to the color, as the ball in the UI is animated while a build is running.
+	 *
+	 * @return True if the branch is currently being built.
+	 */
+	public boolean isBuilding() {
+		return building;
+	}
+
+	/**
+	 * Returns true if this information couldn't be refreshed in the last poll.
+	 * <p>
+	 * If Jenkins doesn't answer for a project, the last known status of its branches is used instead of failing the whole poll. Those
+	 * branches are marked as stale, so they can be shown differently if desired.
+	 *
+	 * @return True if this is the last known status and not the current one.
+	 */
+	public boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * Returns a copy of this branch info that is marked as stale.
+	 *
+	 * @return A stale copy or this instance if it already is stale.
+	 */
+	public JenkinsBranchInfo asStale() {
+		return stale ? this : new JenkinsBranchInfo(projectName, branchName, color, building, true);
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		JenkinsBranchInfo that = (JenkinsBranchInfo) o;
+		return building == that.building &&
+				stale == that.stale &&
+				Objects.equals(projectName, that.projectName) &&
+				Objects.equals(branchName, that.branchName) &&
+				color == that.color;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(projectName, branchName, color, building, stale);
+	}
+
 	@Override
 	public String toString() {
 		return "JenkinsBranchInfo{" +
 				"projectName='" + projectName + '\'' +
 				", branchName='" + branchName + '\'' +
-				", color='" + color + '\'' +
+				", color='" + color.getName() + '\'' +
+				", building=" + building +
+				", stale=" + stale +
 				'}';
 	}
 }
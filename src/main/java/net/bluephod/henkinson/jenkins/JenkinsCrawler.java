@@ -0,0 +1,331 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import net.bluephod.henkinson.config.BranchFilter;
+import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.jenkins.model.AbstractJenkinsObject;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Walks through a Jenkins server with arbitrarily nested folders.
+ * <p>
+ * The classic way of polling only knows two levels: a top-level job either has a color of its own or is a multi-branch project whose
+ * jobs are branches. The crawler follows folders (including GitHub organization folders) as deep as
+ * {@link Configuration#getCrawlMaxDepth()} and tells the different kinds of jobs apart by their <code>_class</code>, see
+ * {@link JobNode#getKind()}. Projects are named by their path, e.g. <code>my-org/my-repo</code>.
+ * <p>
+ * Every resource is requested with a tree query covering two levels of jobs, so the branches of the multi-branch projects in a folder
+ * come with the folder, and only folders cost another request. The folders are crawled by tasks in a {@link ForkJoinPool}, so idle
+ * threads steal work from busy ones no matter how unbalanced the tree is. At most {@link Configuration#getFetchParallelism()} requests
+ * run at the same time. Once {@link Configuration#getCrawlTimeout()} ms have passed, no more requests are made and whatever is left is
+ * taken from the last poll as stale, so a poll of a large tree takes a known time.
+ * <p>
+ * Results are put together in the order in which Jenkins lists the jobs, so the status looks the same no matter which thread finished
+ * first.
+ */
+class JenkinsCrawler {
+	/**
+	 * The tree query used for every resource the crawler requests.
+	 */
+	static final String TREE_QUERY = "_class,jobs[_class,name,url,color,jobs[_class,name,url,color]]";
+
+	private final Configuration config;
+	private final JobReader reader;
+	private final ForkJoinPool pool;
+	private final Semaphore requests;
+
+	JenkinsCrawler(final Configuration config, final JobReader reader) {
+		this.config = config;
+		this.reader = reader;
+
+		int parallelism = Math.max(1, config.getFetchParallelism());
+		this.pool = new ForkJoinPool(parallelism);
+		this.requests = new Semaphore(parallelism);
+	}
+
+	/**
+	 * Crawls everything below the given resource.
+	 *
+	 * @param rootUrl The API URL of the root resource, without a tree query.
+	 * @return The status of all jobs that were found.
+	 * @throws IOException If the root resource can't be retrieved and there's no previous result for it.
+	 */
+	JenkinsStatus crawl(String rootUrl) throws IOException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getCrawlTimeout());
+
+		try {
+			JenkinsStatus status = pool.invoke(new CrawlTask(null, getTreeQueryUrl(rootUrl), JobNode.Kind.FOLDER, 0, deadline));
+			return status == null ? new JenkinsStatus.Builder().build() : status;
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Stops the threads of the crawler.
+	 */
+	void close() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Appends the crawler's tree query to an API URL.
+	 *
+	 * @param apiUrl The API URL.
+	 * @return The URL with the tree query.
+	 */
+	static String getTreeQueryUrl(String apiUrl) {
+		try {
+			return apiUrl + (apiUrl.contains("?") ? "&" : "?") + "tree=" + URLEncoder.encode(TREE_QUERY, StandardCharsets.UTF_8.name());
+		}
+		catch(UnsupportedEncodingException e) {
+			throw new IllegalStateException("Wow, your JDK doesn't support UTF-8. You're fucked.", e);
+		}
+	}
+
+	/**
+	 * Reads a resource, or takes the last known result once the deadline has passed.
+	 * <p>
+	 * Waiting for a request slot and for Jenkins blocks the worker thread, so it's done through
+	 * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}. That way the pool can start a spare thread to go on with the tasks
+	 * that don't need a request, e.g. those that only put together the results of their subtasks, instead of waiting for the slowest
+	 * request. The semaphore still keeps the number of requests at the configured parallelism.
+	 */
+	private RemoteJenkins.Result<JobNode> read(final String url, final long deadline) throws IOException {
+		Request request = new Request(url, deadline);
+
+		try {
+			ForkJoinPool.managedBlock(request);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a request slot.", e);
+		}
+
+		return request.getResult();
+	}
+
+	private void addBranches(final JenkinsStatus.Builder status, final String projectName, final List<JobNode> branches,
+			final boolean stale) {
+		BranchFilter branchFilter = config.getBranchFilter();
+
+		for(JobNode branch : branches) {
+			String branchName = branch.getName();
+
+			// branches without a color are nested folders, which aren't branches at all.
+			if(branch.getColor() != null && branchFilter.isIncluded(projectName, branchName)) {
+				status.updateStats(projectName, branchName, branch.getColor(), stale);
+			}
+		}
+	}
+
+	private static String getChildPath(final String path, final JobNode child) {
+		return path == null ? child.getName() : path + "/" + child.getName();
+	}
+
+	/**
+	 * The way the crawler gets at the resources, including caching and the fallback to previous results.
+	 */
+	interface JobReader {
+		/**
+		 * Retrieves and decodes a job resource.
+		 *
+		 * @param url The URL of the resource.
+		 * @return The job, which is stale if it couldn't be retrieved and is the last known result.
+		 * @throws IOException If the resource can't be retrieved and there is no previous result for it.
+		 */
+		RemoteJenkins.Result<JobNode> read(String url) throws IOException;
+
+		/**
+		 * Returns the last known result for a job resource without making a request.
+		 *
+		 * @param url The URL of the resource.
+		 * @return The stale job.
+		 * @throws IOException If there is no previous result.
+		 */
+		RemoteJenkins.Result<JobNode> readCached(String url) throws IOException;
+	}
+
+	/**
+	 * A single request, which blocks until there's a request slot and Jenkins has answered.
+	 */
+	private final class Request implements ForkJoinPool.ManagedBlocker {
+		private final String url;
+		private final long deadline;
+		private RemoteJenkins.Result<JobNode> result;
+		private IOException error;
+		private boolean done;
+
+		Request(final String url, final long deadline) {
+			this.url = url;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			long remaining = deadline - System.nanoTime();
+
+			try {
+				if(remaining <= 0 || !requests.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+					Logger.debug(String.format("Crawl timeout reached, using last known result for %s.", url));
+					result = reader.readCached(url);
+				}
+				else {
+					try {
+						result = reader.read(url);
+					}
+					finally {
+						requests.release();
+					}
+				}
+			}
+			catch(IOException e) {
+				error = e;
+			}
+
+			done = true;
+			return true;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			return done;
+		}
+
+		RemoteJenkins.Result<JobNode> getResult() throws IOException {
+			if(error != null) {
+				throw error;
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Crawls a folder or multi-branch project and everything below it.
+	 * <p>
+	 * The result is null if the resource couldn't be retrieved at all, which leaves out that part of the tree. For the root resource,
+	 * the exception is passed on instead.
+	 */
+	private final class CrawlTask extends RecursiveTask<JenkinsStatus> {
+		private static final long serialVersionUID = 1L;
+
+		private final String path;
+		private final String url;
+		private final JobNode.Kind kind;
+		private final int depth;
+		private final long deadline;
+
+		CrawlTask(final String path, final String url, final JobNode.Kind kind, final int depth, final long deadline) {
+			this.path = path;
+			this.url = url;
+			this.kind = kind;
+			this.depth = depth;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected JenkinsStatus compute() {
+			RemoteJenkins.Result<JobNode> resource;
+
+			try {
+				resource = read(url, deadline);
+			}
+			catch(IOException e) {
+				if(depth == 0) {
+					throw new UncheckedIOException(e);
+				}
+
+				Logger.warn(e, String.format("Could not retrieve %s and there's no previous result to fall back on, skipping it.", path));
+				return null;
+			}
+
+			JobNode node = resource.getValue();
+			JenkinsStatus.Builder status = new JenkinsStatus.Builder();
+
+			if(node.getJobs() == null) {
+				return status.build();
+			}
+
+			if(kind == JobNode.Kind.MULTI_BRANCH) {
+				addBranches(status, path, node.getJobs(), resource.isStale());
+			}
+			else {
+				addChildren(status, node.getJobs(), resource.isStale());
+			}
+
+			return status.build();
+		}
+
+		private void addChildren(final JenkinsStatus.Builder status, final List<JobNode> children, final boolean stale) {
+			CrawlTask[] subtasks = new CrawlTask[children.size()];
+
+			for(int i = 0; i < subtasks.length; i++) {
+				subtasks[i] = createSubtask(children.get(i));
+
+				if(subtasks[i] != null) {
+					subtasks[i].fork();
+				}
+			}
+
+			for(int i = 0; i < subtasks.length; i++) {
+				JobNode child = children.get(i);
+				String childPath = getChildPath(path, child);
+
+				if(subtasks[i] != null) {
+					JenkinsStatus childStatus = subtasks[i].join();
+
+					if(childStatus != null) {
+						status.addAll(childStatus);
+					}
+				}
+				else if(child.getKind() == JobNode.Kind.JOB) {
+					// a job with a color of its own is counted as if it was a master branch.
+					status.updateStats(childPath, "", child.getColor(), stale);
+				}
+				else if(child.getKind() == JobNode.Kind.MULTI_BRANCH && child.getJobs() != null) {
+					addBranches(status, childPath, child.getJobs(), stale);
+				}
+			}
+		}
+
+		/**
+		 * Creates the task for a child that needs a request of its own.
+		 *
+		 * @return The task, or null if everything we need to know about the child is already there or it isn't crawled at all.
+		 */
+		private CrawlTask createSubtask(final JobNode child) {
+			JobNode.Kind childKind = child.getKind();
+
+			if(childKind == JobNode.Kind.JOB || childKind == JobNode.Kind.UNKNOWN || child.getUrl() == null) {
+				return null;
+			}
+
+			if(childKind == JobNode.Kind.MULTI_BRANCH && child.getJobs() != null) {
+				// the branches came with the tree query.
+				return null;
+			}
+
+			String childPath = getChildPath(path, child);
+
+			if(depth + 1 > config.getCrawlMaxDepth()) {
+				Logger.debug(String.format("Not descending into %s, it's nested deeper than %d levels.", childPath, config.getCrawlMaxDepth()));
+				return null;
+			}
+
+			return new CrawlTask(childPath, getTreeQueryUrl(child.getUrl() + AbstractJenkinsObject.API_URL_SUFFIX), childKind, depth + 1,
+													 deadline);
+		}
+	}
+}
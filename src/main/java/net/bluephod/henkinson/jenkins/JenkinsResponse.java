@@ -0,0 +1,51 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+/**
+ * A response returned by a {@link JenkinsTransport}.
+ * <p>
+ * The body is already decompressed if the server sent it compressed. Close the response when you're done with it - that's what allows
+ * the transport to reuse the connection.
+ */
+public final class JenkinsResponse implements Closeable {
+	private final int statusCode;
+	private final String etag;
+	private final String lastModified;
+	private final InputStream body;
+
+	public JenkinsResponse(final int statusCode, final String etag, final String lastModified, final InputStream body) {
+		this.statusCode = statusCode;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.body = body;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public boolean isNotModified() {
+		return statusCode == HttpURLConnection.HTTP_NOT_MODIFIED;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public InputStream getBody() {
+		return body;
+	}
+
+	@Override
+	public void close() throws IOException {
+		body.close();
+	}
+}
@@ -0,0 +1,25 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+
+/**
+ * Jenkins answered, but with something we can't use, e.g. "403 Forbidden" or "404 Not Found".
+ * <p>
+ * Unlike a connection that fails or times out, asking again won't change the answer, so the request isn't retried. And since the host
+ * did answer, it doesn't count as a failure of the host for the {@link CircuitBreaker} either - one deleted job must not take all the
+ * other projects on the same Jenkins down with it.
+ */
+public class JenkinsResponseException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	private final int statusCode;
+
+	public JenkinsResponseException(final int statusCode, final String message) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+}
@@ -1,16 +1,54 @@
 package net.bluephod.henkinson.jenkins;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * A snapshot of the build status of all branches on a Jenkins server.
+ * <p>
+ * Instances are created using a {@link Builder} and are immutable after that, so they can be handed to other threads without any
+ * further synchronization. All the lists a status hands out are prepared when it is built, so reading from it doesn't allocate anything -
+ * which is nice, as the GUI does that quite a lot.
+ */
 public final class JenkinsStatus {
-	private int red;
-	private int yellow;
-	private int green;
-	private List<JenkinsBranchInfo> branchInfos = new LinkedList<>();
+	private static final Comparator<JenkinsBranchInfo> BY_PROJECT_NAME = Comparator.comparing(JenkinsBranchInfo::getProjectName);
+
+	private final int red;
+	private final int yellow;
+	private final int green;
+	private final int building;
+	private final int stale;
+	private final List<JenkinsBranchInfo> branchInfos;
+	private final Map<BuildColor, List<JenkinsBranchInfo>> branchesByColor;
+
+	private JenkinsStatus(final Builder builder) {
+		this.red = builder.red;
+		this.yellow = builder.yellow;
+		this.green = builder.green;
+		this.building = builder.building;
+		this.stale = builder.stale;
+		this.branchInfos = Collections.unmodifiableList(new ArrayList<>(builder.branchInfos));
+		this.branchesByColor = new EnumMap<>(BuildColor.class);
+
+		for(BuildColor color : BuildColor.values()) {
+			branchesByColor.put(color, new ArrayList<>());
+		}
+
+		for(JenkinsBranchInfo info : branchInfos) {
+			branchesByColor.get(info.getColor()).add(info);
+		}
+
+		for(Map.Entry<BuildColor, List<JenkinsBranchInfo>> entry : branchesByColor.entrySet()) {
+			// the sort is stable, so branches of the same project stay in the order in which they were added.
+			entry.getValue().sort(BY_PROJECT_NAME);
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+	}
 
 	public int getRed() {
 		return red;
@@ -24,6 +62,26 @@ public final class JenkinsStatus {
 		return green;
 	}
 
+	/**
+	 * Returns the number of branches for which a build is running right now.
+	 * <p>
+	 * These are the ones with an "_anime" color. They are counted as red, yellow or green as well, according to their previous result.
+	 *
+	 * @return The number of running builds.
+	 */
+	public int getBuilding() {
+		return building;
+	}
+
+	/**
+	 * Returns the number of branches whose status couldn't be refreshed, see {@link JenkinsBranchInfo#isStale()}.
+	 *
+	 * @return The number of stale branches.
+	 */
+	public int getStale() {
+		return stale;
+	}
+
 	public int getTotal() {
 		return red + yellow + green;
 	}
@@ -33,50 +91,40 @@ public final class JenkinsStatus {
 				"red=" + red +
 				", yellow=" + yellow +
 				", green=" + green +
+				", building=" + building +
+				", stale=" + stale +
 				'}';
 	}
 
-	public void updateStats(String projectName, String color) {
-		updateStats(projectName, "", color);
-	}
-
-	public void updateStats(String projectName, String branchName, String color) {
-		String simplifiedColor = "unknown";
-
-		switch(color) {
-			case "blue":
-			case "blue_anime":
-				green++;
-				simplifiedColor = "green";
-				break;
-			case "yellow":
-			case "yellow_anime":
-				yellow++;
-				simplifiedColor = "yellow";
-				break;
-			case "red":
-			case "red_anime":
-				red++;
-				simplifiedColor = "red";
-				break;
-			default:
-				// simply ignore the grey and disabled ones
-		}
-
-		branchInfos.add(new JenkinsBranchInfo(projectName, branchName, simplifiedColor));
+	/**
+	 * Returns all branches in the order in which they were added.
+	 *
+	 * @return An unmodifiable list of all branches.
+	 */
+	public List<JenkinsBranchInfo> getBranchInfos() {
+		return branchInfos;
 	}
 
-	public List<JenkinsBranchInfo> getBranchInfos() {
-		return Collections.unmodifiableList(branchInfos);
+	/**
+	 * Returns the branches with the given color, sorted by project name.
+	 *
+	 * @param color The color.
+	 * @return An unmodifiable list of the branches with that color.
+	 */
+	public List<JenkinsBranchInfo> getBranchesWithColor(BuildColor color) {
+		return branchesByColor.get(color);
 	}
 
+	/**
+	 * Returns the branches with the given color, sorted by project name.
+	 *
+	 * @param color The name of the color, e.g. "red".
+	 * @return An unmodifiable list of the branches with that color.
+	 * @deprecated Use {@link #getBranchesWithColor(BuildColor)} instead.
+	 */
+	@Deprecated
 	public List<JenkinsBranchInfo> getBranchesWitchColor(String color) {
-		return Collections.unmodifiableList(
-				branchInfos.stream()
-						.filter(jenkinsBranchInfo -> jenkinsBranchInfo.getColor().equals(color))
-						.sorted(Comparator.comparing(JenkinsBranchInfo::getProjectName))
-						.collect(Collectors.toList())
-		);
+		return getBranchesWithColor(BuildColor.forName(color));
 	}
 
 	public boolean isWorseThan(JenkinsStatus other) {
@@ -86,4 +134,138 @@ public final class JenkinsStatus {
 
 		return getRed() > other.getRed() || (getRed() == other.getRed() && getYellow() > other.getYellow());
 	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		JenkinsStatus that = (JenkinsStatus) o;
+		return red == that.red &&
+				yellow == that.yellow &&
+				green == that.green &&
+				building == that.building &&
+				stale == that.stale &&
+				branchInfos.equals(that.branchInfos);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(red, yellow, green, building, stale, branchInfos);
+	}
+
+	/**
+	 * Collects the branches for a {@link JenkinsStatus}.
+	 * <p>
+	 * Builders are not thread-safe. If several threads collect branches, let each of them use its own builder and merge the results using
+	 * {@link #addAll(JenkinsStatus)}.
+	 */
+	public static final class Builder {
+		private int red;
+		private int yellow;
+		private int green;
+		private int building;
+		private int stale;
+		private final List<JenkinsBranchInfo> branchInfos = new ArrayList<>();
+
+		public Builder updateStats(String projectName, String color) {
+			return updateStats(projectName, "", color);
+		}
+
+		public Builder updateStats(String projectName, String branchName, String color) {
+			return updateStats(projectName, branchName, color, false);
+		}
+
+		public Builder updateStats(String projectName, String branchName, String color, boolean stale) {
+			BuildColor buildColor = BuildColor.fromJenkinsColor(color);
+			boolean isBuilding = color.endsWith("_anime");
+
+			add(new JenkinsBranchInfo(projectName, branchName, buildColor, isBuilding, stale));
+
+			return this;
+		}
+
+		/**
+		 * Adds everything contained in a status to this builder.
+		 * <p>
+		 * This is handy if parts of the status are collected separately, e.g. one per project.
+		 *
+		 * @param other The status whose branches should be added.
+		 * @return This builder.
+		 */
+		public Builder addAll(JenkinsStatus other) {
+			return addAll(other, false);
+		}
+
+		/**
+		 * Adds everything contained in a status to this builder, optionally marking it as stale.
+		 *
+		 * @param other The status whose branches should be added.
+		 * @param stale If true, all branches are added as stale ones.
+		 * @return This builder.
+		 */
+		public Builder addAll(JenkinsStatus other, boolean stale) {
+			return addAll(other, "", stale);
+		}
+
+		/**
+		 * Adds everything contained in a status to this builder with a prefix in front of all project names, optionally marking it as stale.
+		 *
+		 * @param other The status whose branches should be added.
+		 * @param projectPrefix The prefix for the project names, e.g. "ci/".
+		 * @param stale If true, all branches are added as stale ones.
+		 * @return This builder.
+		 */
+		public Builder addAll(JenkinsStatus other, String projectPrefix, boolean stale) {
+			for(JenkinsBranchInfo info : other.branchInfos) {
+				JenkinsBranchInfo prefixed = projectPrefix.isEmpty() ? info : new JenkinsBranchInfo(projectPrefix + info.getProjectName(),
+						info.getBranchName(), info.getColor(), info.isBuilding(), info.isStale());
+
+				add(stale ? prefixed.asStale() : prefixed);
+			}
+
+			return this;
+		}
+
+		public JenkinsStatus build() {
+			return new JenkinsStatus(this);
+		}
+
+		/**
+		 * Adds a single branch as it is.
+		 *
+		 * @param info The branch.
+		 * @return This builder.
+		 */
+		Builder add(final JenkinsBranchInfo info) {
+			switch(info.getColor()) {
+				case GREEN:
+					green++;
+					break;
+				case YELLOW:
+					yellow++;
+					break;
+				case RED:
+					red++;
+					break;
+				default:
+					// simply ignore the grey and disabled ones
+			}
+
+			if(info.isBuilding()) {
+				building++;
+			}
+
+			if(info.isStale()) {
+				stale++;
+			}
+
+			branchInfos.add(info);
+
+			return this;
+		}
+	}
 }
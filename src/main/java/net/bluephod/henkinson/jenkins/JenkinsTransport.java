@@ -0,0 +1,28 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+
+/**
+ * The way http requests get to the Jenkins server.
+ * <p>
+ * {@link RemoteJenkins} only cares about bodies and validators, not about connections, authentication or compression. All of that is
+ * hidden behind this interface, so it can be replaced without touching the code that makes sense of the responses.
+ */
+public interface JenkinsTransport {
+	/**
+	 * Performs a GET request for the given URL.
+	 * <p>
+	 * The validators are sent as <code>If-None-Match</code> and <code>If-Modified-Since</code> headers if they aren't null. Error
+	 * responses are reported as exceptions, so the returned response is either a success or "304 Not Modified". Client errors (4xx) must
+	 * be reported as {@link JenkinsResponseException}, as they won't go away by retrying, server errors (5xx) as plain
+	 * <code>IOException</code>s.
+	 *
+	 * @param url The URL to retrieve.
+	 * @param etag The ETag of the previous response for this URL or null.
+	 * @param lastModified The Last-Modified value of the previous response for this URL or null.
+	 * @return The response, which must be closed by the caller.
+	 * @throws JenkinsResponseException If the server responds with a client error.
+	 * @throws IOException If the request fails or the server responds with a server error.
+	 */
+	JenkinsResponse get(String url, String etag, String lastModified) throws IOException;
+}
@@ -0,0 +1,168 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.bluephod.henkinson.HenkinsonUtil;
+
+/**
+ * A job of any kind as the {@link JenkinsCrawler} sees it: a folder, a multi-branch project, a branch or a plain job.
+ * <p>
+ * What it is can't be told from the name or the URL, only from the <code>_class</code> attribute Jenkins adds to every object, so that's
+ * what {@link #getKind()} looks at. Nodes are decoded with the streaming parser and only contain the attributes the crawler needs.
+ */
+final class JobNode {
+	/**
+	 * The kinds of jobs the crawler distinguishes.
+	 */
+	enum Kind {
+		/**
+		 * Something containing other jobs, like a plain folder or a GitHub organization folder.
+		 */
+		FOLDER,
+		/**
+		 * A multi-branch project, whose jobs are branches.
+		 */
+		MULTI_BRANCH,
+		/**
+		 * A job with a build status of its own.
+		 */
+		JOB,
+		/**
+		 * Anything else, which is ignored.
+		 */
+		UNKNOWN
+	}
+
+	private static final JsonFactory factory = new JsonFactory();
+
+	private final String type;
+	private final String name;
+	private final String url;
+	private final String color;
+	private final List<JobNode> jobs;
+
+	JobNode(final String type, final String name, final String url, final String color, final List<JobNode> jobs) {
+		this.type = type;
+		this.name = name;
+		this.url = url;
+		this.color = color;
+		this.jobs = jobs == null ? null : Collections.unmodifiableList(jobs);
+	}
+
+	/**
+	 * Decodes the resource of a job.
+	 *
+	 * @param in The stream from which the JSON can be read.
+	 * @return The job described by the resource.
+	 * @throws IOException If the stream can't be read or doesn't contain a JSON object.
+	 */
+	static JobNode decode(InputStream in) throws IOException {
+		try(JsonParser parser = factory.createParser(in)) {
+			if(parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException(String.format("Expected a JSON object at %s", parser.getCurrentLocation()));
+			}
+
+			return decodeObject(parser);
+		}
+	}
+
+	private static JobNode decodeObject(final JsonParser parser) throws IOException {
+		String type = null;
+		String name = null;
+		String url = null;
+		String color = null;
+		List<JobNode> jobs = null;
+
+		while(parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+
+			if("_class".equals(field)) {
+				type = parser.getValueAsString();
+			}
+			else if("name".equals(field)) {
+				name = parser.getValueAsString();
+			}
+			else if("url".equals(field)) {
+				url = parser.getValueAsString();
+			}
+			else if("color".equals(field)) {
+				color = parser.getValueAsString();
+			}
+			else if("jobs".equals(field) && value == JsonToken.START_ARRAY) {
+				jobs = new ArrayList<>();
+
+				while(parser.nextToken() == JsonToken.START_OBJECT) {
+					jobs.add(decodeObject(parser));
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+
+		return new JobNode(type, name, url, color, jobs);
+	}
+
+	/**
+	 * Tells what this job is, based on its <code>_class</code>.
+	 * <p>
+	 * Multi-branch projects come from different plugins, but all of their classes are called something with "MultiBranchProject". The
+	 * same goes for folders, which include organization folders and other computed folders. If the class is something else or missing,
+	 * a job with a color is a job and a job with jobs is treated like a folder.
+	 *
+	 * @return The kind of job.
+	 */
+	Kind getKind() {
+		if(type != null && type.contains("MultiBranchProject")) {
+			return Kind.MULTI_BRANCH;
+		}
+
+		if(type != null && type.contains("Folder")) {
+			return Kind.FOLDER;
+		}
+
+		if(color != null) {
+			return Kind.JOB;
+		}
+
+		return jobs != null ? Kind.FOLDER : Kind.UNKNOWN;
+	}
+
+	String getType() {
+		return type;
+	}
+
+	/**
+	 * The URL-decoded name of the job.
+	 *
+	 * @return The name.
+	 */
+	String getName() {
+		return HenkinsonUtil.urlDecode(name);
+	}
+
+	String getUrl() {
+		return url;
+	}
+
+	String getColor() {
+		return color;
+	}
+
+	/**
+	 * The jobs contained in this one.
+	 *
+	 * @return The jobs, or null if the response didn't say anything about them.
+	 */
+	List<JobNode> getJobs() {
+		return jobs;
+	}
+}
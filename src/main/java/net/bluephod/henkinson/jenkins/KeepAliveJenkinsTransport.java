@@ -0,0 +1,131 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.config.JenkinsServerConfiguration;
+import org.pmw.tinylog.Logger;
+
+/**
+ * A transport based on the JDK's <code>HttpURLConnection</code> that makes the most of persistent connections.
+ * <p>
+ * The JDK keeps idle connections around and reuses them for the next request to the same host, but only if every response body is
+ * consumed and closed properly, including the error responses. That's what this class makes sure of, so the TCP and TLS handshakes are
+ * only done once per connection instead of once per request. On top of that, responses are requested gzip compressed (JSON compresses
+ * really well), the authorization header is computed once and connecting and reading have separate timeouts.
+ * <p>
+ * The JDK only keeps {@link #MAX_CONNECTIONS_PROPERTY} idle connections per host, which is 5 by default. It reads that property once, when
+ * the first connection is made, so it's raised at startup by {@link #configureConnectionPool(Configuration)} rather than by the
+ * transports themselves. A transport that fetches more projects in parallel than that later on, e.g. after the configuration was reloaded,
+ * only logs a warning.
+ */
+public class KeepAliveJenkinsTransport implements JenkinsTransport {
+	static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+	private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+	private final String authorization;
+	private final int connectTimeout;
+	private final int readTimeout;
+
+	public KeepAliveJenkinsTransport(final Configuration config) {
+		this.authorization = "Basic " + Base64.getEncoder()
+				.encodeToString((config.getUsername() + ":" + config.getPassword()).getBytes(StandardCharsets.UTF_8));
+		this.connectTimeout = config.getConnectTimeout();
+		this.readTimeout = config.getReadTimeout();
+
+		int maxConnections = Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS);
+
+		if(config.getFetchParallelism() > maxConnections) {
+			Logger.warn(String.format("Fetching %d projects in parallel, but only %d idle connections per host are kept, which can't change " +
+																"before the next restart.", config.getFetchParallelism(), maxConnections));
+		}
+	}
+
+	/**
+	 * Makes sure the JDK keeps enough idle connections per host for the highest fetch parallelism of all servers.
+	 * <p>
+	 * This must be called at startup, before the first request is made. If {@link #MAX_CONNECTIONS_PROPERTY} was set explicitly on the
+	 * command line, it's left alone.
+	 *
+	 * @param config The configuration.
+	 */
+	public static void configureConnectionPool(Configuration config) {
+		if(System.getProperty(MAX_CONNECTIONS_PROPERTY) != null) {
+			Logger.info(String.format("Keeping %s idle connections per host as set on the command line.",
+																System.getProperty(MAX_CONNECTIONS_PROPERTY)));
+			return;
+		}
+
+		int parallelism = config.getFetchParallelism();
+
+		for(JenkinsServerConfiguration server : config.getServers()) {
+			parallelism = Math.max(parallelism, config.forServer(server).getFetchParallelism());
+		}
+
+		if(parallelism > DEFAULT_MAX_CONNECTIONS) {
+			System.setProperty(MAX_CONNECTIONS_PROPERTY, String.valueOf(parallelism));
+			Logger.info(String.format("Keeping up to %d idle connections per host.", parallelism));
+		}
+	}
+
+	@Override
+	public JenkinsResponse get(final String url, final String etag, final String lastModified) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+
+		connection.setRequestMethod("GET");
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		connection.setRequestProperty("Authorization", authorization);
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+
+		if(etag != null) {
+			connection.setRequestProperty("If-None-Match", etag);
+		}
+
+		if(lastModified != null) {
+			connection.setRequestProperty("If-Modified-Since", lastModified);
+		}
+
+		int statusCode = connection.getResponseCode();
+
+		if(statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+			// the error body has to be consumed as well, otherwise the connection can't be reused.
+			discard(connection.getErrorStream());
+			String message = String.format("Server returned http status %d for %s", statusCode, url);
+
+			if(statusCode < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+				throw new JenkinsResponseException(statusCode, message);
+			}
+
+			throw new IOException(message);
+		}
+
+		InputStream body = connection.getInputStream();
+
+		if(statusCode != HttpURLConnection.HTTP_NOT_MODIFIED && "gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+			body = new GZIPInputStream(body);
+		}
+
+		return new JenkinsResponse(statusCode, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"), body);
+	}
+
+	private void discard(final InputStream in) throws IOException {
+		if(in == null) {
+			return;
+		}
+
+		try(InputStream stream = in) {
+			byte[] buffer = new byte[1024];
+
+			while(stream.read(buffer) != -1) {
+				// just throw it away
+			}
+		}
+	}
+}
@@ -1,21 +1,36 @@
 package net.bluephod.henkinson.jenkins;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.bluephod.henkinson.HenkinsonUtil;
+import net.bluephod.henkinson.config.BranchFilter;
 import net.bluephod.henkinson.config.Configuration;
 import net.bluephod.henkinson.jenkins.model.JenkinsApiRoot;
 import net.bluephod.henkinson.jenkins.model.JenkinsBranchDescriptor;
 import net.bluephod.henkinson.jenkins.model.JenkinsProject;
 import net.bluephod.henkinson.jenkins.model.JenkinsProjectDescriptor;
+import net.bluephod.henkinson.metrics.Counter;
+import net.bluephod.henkinson.metrics.Histogram;
+import net.bluephod.henkinson.metrics.MetricFamily;
+import net.bluephod.henkinson.metrics.MetricsRegistry;
 import org.pmw.tinylog.Logger;
 
 /**
@@ -23,126 +38,508 @@ import org.pmw.tinylog.Logger;
  * <p>
  * Please note that this was only tested with Jenkins 2.130. I have no clue if it will work on earlier or later
  * versions.
+ * <p>
+ * There are two ways of turning the JSON into a status: The classic one deserializes the model classes from
+ * {@link net.bluephod.henkinson.jenkins.model} and walks through them, the other one uses the {@link StreamingJenkinsDecoder} and
+ * doesn't create any model objects at all. Which one is used is controlled by {@link Configuration#isStreamingParserEnabled()}. Both
+ * only know top-level jobs and multi-branch projects, for nested folders there's the {@link JenkinsCrawler}, see
+ * {@link Configuration#isCrawlerEnabled()}.
+ * <p>
+ * A poll doesn't fail just because Jenkins doesn't answer for some project. Every resource gets at most
+ * {@link Configuration#getProjectTimeout()} ms including retries, hosts that keep failing are skipped for a while by a
+ * {@link CircuitBreaker}, and resources Jenkins refuses to hand out (see {@link JenkinsResponseException}) fail right away without
+ * retries. If a resource can't be retrieved, the last result we got for it is used and its branches are marked as stale. Only if there's nothing to fall back on, the project is left out or - for the root resource - the poll fails.
+ * <p>
+ * How long requests and decoding take, how often requests have to be retried and how much there is to poll ends up in the
+ * {@link MetricsRegistry}.
  */
 public class RemoteJenkins implements Jenkins {
 	private Configuration config;
+	private ExecutorService fetchExecutor;
+	private JenkinsCrawler crawler;
+	private final ResponseCache responseCache = new ResponseCache();
+	private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final StreamingJenkinsDecoder streamingDecoder;
+	private final JenkinsTransport transport;
+
+	private final MetricFamily<Histogram> requestDuration;
+	private final Histogram requestRetries;
+	private final Counter failedRequests;
+	private final Histogram decodeDuration;
+	private final Histogram projectsPerPoll;
+	private final Histogram branchesPerPoll;
 
 	public RemoteJenkins(Configuration config) {
+		this(config, new KeepAliveJenkinsTransport(config));
+	}
+
+	public RemoteJenkins(Configuration config, JenkinsTransport transport) {
 		this.config = config;
+		this.transport = transport;
+		this.streamingDecoder = new StreamingJenkinsDecoder(config);
+
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		requestDuration = metrics.histograms("henkinson_jenkins_request_duration_ms",
+																				 "Time it took to retrieve a resource from Jenkins, including retries.", "host");
+		requestRetries = metrics.histogram("henkinson_jenkins_request_retries", "Number of retries needed per resource.");
+		failedRequests = metrics.counter("henkinson_jenkins_failed_requests_total", "Number of resources that couldn't be retrieved.");
+		decodeDuration = metrics.histogram("henkinson_jenkins_decode_duration_us", "Time it took to decode a JSON response.");
+		projectsPerPoll = metrics.histogram("henkinson_jenkins_projects_per_poll", "Number of projects found per poll.");
+		branchesPerPoll = metrics.histogram("henkinson_jenkins_branches_per_poll", "Number of branches found per poll.");
 	}
 
 	@Override
 	public JenkinsStatus retrieveStatus() throws IOException {
 		String jenkinsBaseUrl = config.getJenkinsBaseUrl();
 
+		if(config.isTreeQueryEnabled() && !config.isCrawlerEnabled()) {
+			jenkinsBaseUrl = JenkinsApiRoot.getTreeQueryUrl(jenkinsBaseUrl);
+		}
+
 		Logger.debug(String.format("Retrieving stats from %s", jenkinsBaseUrl));
 
-		JenkinsApiRoot root = null;
-		ObjectMapper mapper = new ObjectMapper();
+		JenkinsStatus colors;
 
-		try(InputStream in = getStreamForUrl(jenkinsBaseUrl)) {
-			root = mapper.readValue(in, JenkinsApiRoot.class);
+		if(config.isCrawlerEnabled()) {
+			colors = getCrawler().crawl(jenkinsBaseUrl);
 		}
-		catch(IOException e) {
-			System.exit(-1);
+		else if(config.isStreamingParserEnabled()) {
+			colors = retrieveStatusStreaming(jenkinsBaseUrl);
+		}
+		else {
+			colors = retrieveStatusDatabind(jenkinsBaseUrl);
+		}
+
+		responseCache.evictUnused();
+		projectsPerPoll.record(countProjects(colors));
+		branchesPerPoll.record(colors.getBranchInfos().size());
+
+		if(colors.getStale() > 0) {
+			Logger.warn(String.format("Retrieved Jenkins status, but %d branches are stale.", colors.getStale()));
 		}
+		else {
+			Logger.info("Successfully retrieved Jenkins status.");
+		}
+
+		return colors;
+	}
 
-		Logger.debug(String.format("Found %d projects", root.getProjects().size()));
+	private JenkinsStatus retrieveStatusDatabind(final String rootUrl) throws IOException {
+		Result<JenkinsApiRoot> root = readValue(rootUrl, JenkinsApiRoot.class, in -> mapper.readValue(in, JenkinsApiRoot.class));
 
-		JenkinsStatus colors = new JenkinsStatus();
+		List<JenkinsProjectDescriptor> projectDescriptors = root.getValue().getProjects();
+		Logger.debug(String.format("Found %d projects", projectDescriptors.size()));
 
-		for(JenkinsProjectDescriptor projectDescriptor : root.getProjects()) {
-			processProject(projectDescriptor, mapper, colors);
+		List<JenkinsProjectDescriptor> remoteProjects = projectDescriptors.stream()
+				.filter(projectDescriptor -> !isSingleBranchProject(projectDescriptor) && !projectDescriptor.hasCompleteBranches())
+				.collect(Collectors.toList());
+		Iterator<Result<JenkinsProject>> fetchedProjects = fetchInOrder(remoteProjects, this::fetchProject).iterator();
+
+		JenkinsStatus.Builder colors = new JenkinsStatus.Builder();
+
+		for(JenkinsProjectDescriptor projectDescriptor : projectDescriptors) {
+			if(isSingleBranchProject(projectDescriptor)) {
+				processSingleBranchProject(projectDescriptor, colors, root.isStale());
+			}
+			else if(projectDescriptor.hasCompleteBranches()) {
+				processIncludedBranches(projectDescriptor, colors, root.isStale());
+			}
+			else {
+				Result<JenkinsProject> project = fetchedProjects.next();
+
+				if(project != null) {
+					processMultiBranchProject(project.getValue(), colors, project.isStale());
+				}
+			}
 		}
 
-		Logger.info("Successfully retrieved Jenkins status.");
+		return colors.build();
+	}
+
+	private JenkinsStatus retrieveStatusStreaming(final String rootUrl) throws IOException {
+		Result<StreamingJenkinsDecoder.DecodedRoot> root =
+				readValue(rootUrl, StreamingJenkinsDecoder.DecodedRoot.class, streamingDecoder::decodeRoot);
+		List<StreamingJenkinsDecoder.ProjectReference> remoteProjects = root.getValue().getRemoteProjects();
 
-		return colors;
+		Logger.debug(String.format("Found %d multi-branch projects that need to be retrieved", remoteProjects.size()));
+
+		JenkinsStatus.Builder colors = new JenkinsStatus.Builder().addAll(root.getValue().getStatus(), root.isStale());
+
+		for(Result<JenkinsStatus> projectStatus : fetchInOrder(remoteProjects, this::fetchProjectStatus)) {
+			if(projectStatus != null) {
+				colors.addAll(projectStatus.getValue(), projectStatus.isStale());
+			}
+		}
+
+		return colors.build();
 	}
 
-	private void processProject(final JenkinsProjectDescriptor projectDescriptor, final ObjectMapper mapper,
-			final JenkinsStatus colors) throws IOException {
+	private int countProjects(final JenkinsStatus status) {
+		// the branches of a project are always added one after the other, so every change of the project name is a new project.
+		int projects = 0;
+		String lastProject = null;
 
-		String projectColor = projectDescriptor.getColor();
-		if(projectColor != null) {
-			// a color is only set for single-branch projects. if there is one, we can skip all the branch stuff and simply count the project
-			// color as if it was a master branch.
-			String projectName = projectDescriptor.getName();
-			Logger.debug(String.format("Single-branch project '%s' is %s", projectName, projectColor));
-			colors.updateStats(projectName, projectColor);
+		for(JenkinsBranchInfo branch : status.getBranchInfos()) {
+			if(!branch.getProjectName().equals(lastProject)) {
+				projects++;
+				lastProject = branch.getProjectName();
+			}
+		}
 
-			return;
+		return projects;
+	}
+
+	/**
+	 * Fetches something for each of the given items and returns the results in the order of the items.
+	 * <p>
+	 * If {@link Configuration#getFetchParallelism()} is greater than 1, the requests are fanned out to a pool of that many threads. The
+	 * results are still returned in the order of the items, so the status built from them looks exactly like the one built by the
+	 * sequential walk, and it is only ever touched by the polling thread.
+	 * <p>
+	 * If nothing at all is known about an item, because it couldn't be retrieved now and never was before, its result is null.
+	 */
+	private <S, T> List<Result<T>> fetchInOrder(final List<S> items, final Fetcher<S, T> fetcher) throws IOException {
+		List<Result<T>> results = new ArrayList<>(items.size());
+
+		if(config.getFetchParallelism() <= 1) {
+			for(S item : items) {
+				results.add(fetchOrSkip(item, fetcher));
+			}
+
+			return results;
 		}
 
-		JenkinsProject project = null;
+		ExecutorService executor = getFetchExecutor();
+		List<Future<Result<T>>> futures = new ArrayList<>(items.size());
+
+		for(S item : items) {
+			futures.add(executor.submit(() -> fetchOrSkip(item, fetcher)));
+		}
 
-		try(InputStream in = getStreamForUrl(projectDescriptor.getApiUrl())) {
-			project = mapper.readValue(in, JenkinsProject.class);
+		for(Future<Result<T>> future : futures) {
+			results.add(awaitResult(future));
+		}
+
+		return results;
+	}
+
+	private <S, T> Result<T> fetchOrSkip(final S item, final Fetcher<S, T> fetcher) {
+		try {
+			return fetcher.fetch(item);
 		}
 		catch(IOException e) {
-			System.exit(-1);
+			Logger.warn(e, "Could not retrieve project data and there's no previous result to fall back on, skipping project.");
+			return null;
+		}
+	}
+
+	private <T> T awaitResult(final Future<T> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for project data.");
+		}
+		catch(ExecutionException e) {
+			throw new IOException("Could not retrieve project data.", e.getCause());
 		}
+	}
 
+	@Override
+	public synchronized void close() {
+		if(fetchExecutor != null) {
+			fetchExecutor.shutdownNow();
+		}
+
+		if(crawler != null) {
+			crawler.close();
+		}
+	}
+
+	private synchronized JenkinsCrawler getCrawler() {
+		if(crawler == null) {
+			crawler = new JenkinsCrawler(config, new JenkinsCrawler.JobReader() {
+				@Override
+				public Result<JobNode> read(final String url) throws IOException {
+					return readValue(url, JobNode.class, JobNode::decode);
+				}
+
+				@Override
+				public Result<JobNode> readCached(final String url) throws IOException {
+					return readCachedValue(url, JobNode.class);
+				}
+			});
+		}
+
+		return crawler;
+	}
+
+	private synchronized ExecutorService getFetchExecutor() {
+		if(fetchExecutor == null) {
+			fetchExecutor = Executors.newFixedThreadPool(config.getFetchParallelism(), runnable -> {
+				Thread thread = new Thread(runnable, "jenkins-fetch");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return fetchExecutor;
+	}
+
+	private boolean isSingleBranchProject(final JenkinsProjectDescriptor projectDescriptor) {
+		// a color is only set for single-branch projects.
+		return projectDescriptor.getColor() != null;
+	}
+
+	private void processSingleBranchProject(final JenkinsProjectDescriptor projectDescriptor, final JenkinsStatus.Builder colors,
+			final boolean stale) {
+		// we can skip all the branch stuff and simply count the project color as if it was a master branch.
+		String projectName = projectDescriptor.getName();
+		String projectColor = projectDescriptor.getColor();
+		Logger.debug(String.format("Single-branch project '%s' is %s", projectName, projectColor));
+		colors.updateStats(projectName, "", projectColor, stale);
+	}
+
+	private void processIncludedBranches(final JenkinsProjectDescriptor projectDescriptor, final JenkinsStatus.Builder colors,
+			final boolean stale) {
+		// the tree query already delivered the branches, so there's no need to ask Jenkins about the project again.
+		String projectName = projectDescriptor.getName();
+		Logger.debug(String.format("Using branches from tree query for multi-branch project '%s'", projectName));
+
+		processBranches(projectDescriptor.getBranches(), projectName, colors, stale);
+	}
+
+	private Result<JenkinsProject> fetchProject(final JenkinsProjectDescriptor projectDescriptor) throws IOException {
+		return readValue(projectDescriptor.getApiUrl(), JenkinsProject.class, in -> mapper.readValue(in, JenkinsProject.class));
+	}
+
+	private Result<JenkinsStatus> fetchProjectStatus(final StreamingJenkinsDecoder.ProjectReference project) throws IOException {
+		return readValue(project.getApiUrl(), JenkinsStatus.class, in -> streamingDecoder.decodeProject(in, project.getName()));
+	}
+
+	private void processMultiBranchProject(final JenkinsProject project, final JenkinsStatus.Builder colors, final boolean stale) {
 		String projectName = project.getName();
 		Logger.debug(String.format("Checking branches for multi-branch project '%s'", projectName));
 
 		List<JenkinsBranchDescriptor> branches = project.getBranches();
 
-		processBranches(branches, projectName, colors);
+		processBranches(branches, projectName, colors, stale);
 	}
 
 	private void processBranches(final List<JenkinsBranchDescriptor> branches, final String projectName,
-			final JenkinsStatus colors) throws IOException {
+			final JenkinsStatus.Builder colors, final boolean stale) {
 		if(branches == null) {
 			Logger.debug(String.format("Branches collection for project %s is null, skipping.", projectName));
 			return;
 		}
 
 		Logger.debug(String.format("Found %d branches", branches.size()));
-		boolean includeFeatureBranches = Configuration.getInstance().isIncludeFeatureBranches();
+		BranchFilter branchFilter = config.getBranchFilter();
 
 		for(JenkinsBranchDescriptor branchDescriptor : branches) {
-			if(includeFeatureBranches || branchDescriptor.isMaster()) {
+			if(branchDescriptor.isFolder()) {
+				Logger.debug(String.format("Skipping nested folder '%s' in project %s", branchDescriptor.getName(), projectName));
+				continue;
+			}
+
+			String branchName = branchDescriptor.getName();
+
+			if(branchFilter.isIncluded(projectName, branchName)) {
 				String branchColor = branchDescriptor.getColor();
-				String branchName = branchDescriptor.getName();
 
 				Logger.debug(String.format("Branch '%s' is %s", branchName, branchColor));
-				colors.updateStats(projectName, branchName, branchColor);
+				colors.updateStats(projectName, branchName, branchColor, stale);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the resource at the given URL and decodes it, falling back to the last known result if that fails.
+	 *
+	 * @throws IOException If the resource can't be retrieved and there is no previous result for it.
+	 */
+	private <T> Result<T> readValue(final String url, final Class<T> type, final ResponseDecoder<T> decoder) throws IOException {
+		CachedResponse cached = responseCache.get(url);
+
+		try {
+			return new Result<>(fetchValue(url, type, decoder, cached), false);
+		}
+		catch(IOException e) {
+			if(cached == null) {
+				throw e;
+			}
+
+			Logger.warn(String.format("Could not retrieve %s (%s), using last known result.", url, e.getMessage()));
+			return new Result<>(cached.getValue(type), true);
+		}
+	}
+
+	/**
+	 * Returns the last known result for the given URL without making a request.
+	 *
+	 * @throws IOException If there is no previous result.
+	 */
+	private <T> Result<T> readCachedValue(final String url, final Class<T> type) throws IOException {
+		CachedResponse cached = responseCache.get(url);
+
+		if(cached == null) {
+			throw new IOException(String.format("There's no previous result for %s.", url));
+		}
+
+		return new Result<>(cached.getValue(type), true);
+	}
+
+	/**
+	 * Retrieves the resource at the given URL and decodes it.
+	 * <p>
+	 * If conditional requests are enabled, the validators of the last response are sent along. If the server says that nothing changed or
+	 * the body is byte for byte the same as last time, the object decoded from the last response is returned and the decoder doesn't
+	 * have to do anything. The returned objects must therefore be treated as read-only.
+	 */
+	private <T> T fetchValue(final String url, final Class<T> type, final ResponseDecoder<T> decoder, final CachedResponse cached)
+			throws IOException {
+		boolean conditional = config.isConditionalRequestsEnabled() && cached != null;
+		long requestStart = System.nanoTime();
+
+		try(JenkinsResponse response = getResponseForUrl(url, conditional ? cached : null)) {
+			if(response.isNotModified()) {
+				recordRequestDuration(url, requestStart);
+
+				if(!conditional) {
+					throw new JenkinsResponseException(response.getStatusCode(),
+																						 String.format("Server returned http status 304 for %s, but nothing was asked for.", url));
+				}
+
+				Logger.debug(String.format("%s wasn't modified, reusing previous response.", url));
+				return cached.getValue(type);
 			}
+
+			byte[] body = readFully(response.getBody());
+			recordRequestDuration(url, requestStart);
+			byte[] bodyHash = CachedResponse.hash(body);
+
+			if(conditional && cached.hasBody(bodyHash)) {
+				Logger.debug(String.format("Response for %s is unchanged, reusing previous result.", url));
+				responseCache.put(url, cached.withValidators(response.getEtag(), response.getLastModified()));
+				return cached.getValue(type);
+			}
+
+			// the result is cached even if conditional requests are disabled, as it's the fallback if the next request fails.
+			long decodeStart = System.nanoTime();
+			T value = decoder.decode(new ByteArrayInputStream(body));
+			decodeDuration.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - decodeStart));
+			responseCache.put(url, new CachedResponse(response.getEtag(), response.getLastModified(), bodyHash, value));
+
+			return value;
 		}
 	}
 
-	private void authenticateConnection(URLConnection connection) {
-		String encoded =
-				Base64.getEncoder().encodeToString((config.getUsername() + ":" + config.getPassword()).getBytes(StandardCharsets.UTF_8));
-		connection.setRequestProperty("Authorization", "Basic " + encoded);
+	private void recordRequestDuration(final String url, final long requestStart) throws MalformedURLException {
+		// by host rather than by URL, as every project and folder that ever existed would stay in the registry forever otherwise.
+		requestDuration.get(getHost(url)).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStart));
 	}
 
-	private InputStream getStreamForUrl(final String urlString) throws IOException {
+	private byte[] readFully(final InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+
+		while((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+
+	private JenkinsResponse getResponseForUrl(final String url, final CachedResponse cached) throws IOException {
+		CircuitBreaker circuitBreaker = getCircuitBreaker(url);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getProjectTimeout());
 		int retries = 0;
 		int connectionRetryDelay = config.getConnectionRetryDelay();
+		String etag = cached == null ? null : cached.getEtag();
+		String lastModified = cached == null ? null : cached.getLastModified();
 
-		while(retries < config.getConnectionRetries()) {
-			try {
-				URL url = new URL(urlString);
-				HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		while(true) {
+			if(!circuitBreaker.allowRequest()) {
+				failedRequests.increment();
+				throw new IOException(String.format("Circuit for %s is open, not even trying.", url));
+			}
 
-				connection.setRequestMethod("GET");
-				connection.setReadTimeout(15 * 1000);
-				authenticateConnection(connection);
-				connection.connect();
+			try {
+				JenkinsResponse response = transport.get(url, etag, lastModified);
+				circuitBreaker.recordSuccess();
+				requestRetries.record(retries);
 
-				return connection.getInputStream();
+				return response;
+			}
+			catch(JenkinsResponseException e) {
+				// the host is fine, it's just this resource, so there's no point in retrying or opening the circuit.
+				circuitBreaker.recordSuccess();
+				requestRetries.record(retries);
+				failedRequests.increment();
+				throw e;
 			}
 			catch(IOException e) {
+				circuitBreaker.recordFailure();
 				retries++;
-				Logger.info(
-						String.format("Connection stream retrieval attempt %d failed, waiting %dms before retrying...", retries, connectionRetryDelay));
-				HenkinsonUtil.sleep(connectionRetryDelay);
 			}
+
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+			if(retries >= config.getConnectionRetries() || remaining <= 0 || Thread.currentThread().isInterrupted()) {
+				break;
+			}
+
+			Logger.info(
+					String.format("Connection stream retrieval attempt %d failed, waiting %dms before retrying...", retries, connectionRetryDelay));
+			HenkinsonUtil.sleep(Math.min(connectionRetryDelay, remaining));
 		}
 
-		Logger.error("Exceeded maximum number of connection retries, failing.");
+		Logger.warn(String.format("Giving up on %s after %d attempts.", url, retries));
+		requestRetries.record(retries - 1);
+		failedRequests.increment();
 		throw new IOException("Connection retries exceeded.");
 	}
+
+	private CircuitBreaker getCircuitBreaker(final String url) throws MalformedURLException {
+		return circuitBreakers.computeIfAbsent(getHost(url), key -> new CircuitBreaker(key, config.getCircuitBreakerThreshold(),
+																																									 config.getCircuitBreakerCooldown()));
+	}
+
+	private static String getHost(final String url) throws MalformedURLException {
+		return new URL(url).getAuthority();
+	}
+
+	@FunctionalInterface
+	private interface Fetcher<S, T> {
+		Result<T> fetch(S item) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface ResponseDecoder<T> {
+		T decode(InputStream in) throws IOException;
+	}
+
+	/**
+	 * A decoded resource and the information whether it is fresh or just the last known result.
+	 */
+	static final class Result<T> {
+		private final T value;
+		private final boolean stale;
+
+		Result(final T value, final boolean stale) {
+			this.value = value;
+			this.stale = stale;
+		}
+
+		T getValue() {
+			return value;
+		}
+
+		boolean isStale() {
+			return stale;
+		}
+	}
 }
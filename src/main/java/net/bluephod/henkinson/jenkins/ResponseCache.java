@@ -0,0 +1,40 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-URL cache for responses from the Jenkins API.
+ * <p>
+ * Jenkins doesn't change much between two polls, so most of the time we get exactly the same JSON we got the last time. This cache
+ * provides the validators for conditional requests and the previously deserialized object, so an unchanged resource neither has to be
+ * transferred nor parsed again.
+ * <p>
+ * The cache only keeps the URLs that were used since the last call to {@link #evictUnused()}, so projects that were deleted on the
+ * server don't stay around forever. It is safe to use from several fetching threads at once.
+ */
+final class ResponseCache {
+	private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+	private final Set<String> usedUrls = ConcurrentHashMap.newKeySet();
+
+	CachedResponse get(String url) {
+		usedUrls.add(url);
+		return responses.get(url);
+	}
+
+	void put(String url, CachedResponse response) {
+		usedUrls.add(url);
+		responses.put(url, response);
+	}
+
+	/**
+	 * Drops all responses that haven't been used since the last call of this method.
+	 * <p>
+	 * Call this once after each poll, when no requests are running.
+	 */
+	void evictUnused() {
+		responses.keySet().retainAll(usedUrls);
+		usedUrls.clear();
+	}
+}
@@ -0,0 +1,111 @@
+package net.bluephod.henkinson.jenkins;
+
+/**
+ * Something that happened to a single branch between two polls.
+ * <p>
+ * Instances are created by the {@link StatusChangeDetector}. They carry the branch info from before and after the change, one of which is
+ * null for branches that appeared or disappeared.
+ */
+public final class StatusChange {
+	/**
+	 * The kinds of changes we care about.
+	 */
+	public enum Type {
+		/**
+		 * The branch wasn't there in the previous status.
+		 */
+		APPEARED,
+		/**
+		 * The branch isn't there any more.
+		 */
+		DISAPPEARED,
+		/**
+		 * The branch is red now and wasn't before.
+		 */
+		WENT_RED,
+		/**
+		 * The branch is yellow now and wasn't before.
+		 */
+		WENT_YELLOW,
+		/**
+		 * The branch was red or yellow and is green now.
+		 */
+		RECOVERED,
+		/**
+		 * A build was started for the branch.
+		 */
+		STARTED_BUILDING,
+		/**
+		 * The running build of the branch has finished.
+		 */
+		FINISHED_BUILDING,
+		/**
+		 * The status of the branch couldn't be refreshed, so the last known one is used.
+		 */
+		WENT_STALE,
+		/**
+		 * The status of the branch is current again after being stale, e.g. after a restart from a {@link StatusSnapshot}.
+		 */
+		REFRESHED
+	}
+
+	private final Type type;
+	private final JenkinsBranchInfo before;
+	private final JenkinsBranchInfo after;
+
+	public StatusChange(final Type type, final JenkinsBranchInfo before, final JenkinsBranchInfo after) {
+		this.type = type;
+		this.before = before;
+		this.after = after;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * The branch as it was before the change.
+	 *
+	 * @return The branch info from the previous status or null if the branch has just appeared.
+	 */
+	public JenkinsBranchInfo getBefore() {
+		return before;
+	}
+
+	/**
+	 * The branch as it is after the change.
+	 *
+	 * @return The branch info from the current status or null if the branch has disappeared.
+	 */
+	public JenkinsBranchInfo getAfter() {
+		return after;
+	}
+
+	/**
+	 * Returns the branch info that describes the branch best, which is the current one unless the branch has disappeared.
+	 *
+	 * @return The most recent branch info.
+	 */
+	public JenkinsBranchInfo getBranch() {
+		return after != null ? after : before;
+	}
+
+	/**
+	 * Returns true if this change is bad news.
+	 *
+	 * @return True if the branch went red or yellow.
+	 */
+	public boolean isDeterioration() {
+		return type == Type.WENT_RED || type == Type.WENT_YELLOW;
+	}
+
+	@Override
+	public String toString() {
+		JenkinsBranchInfo branch = getBranch();
+		return "StatusChange{" +
+				"type=" + type +
+				", projectName='" + branch.getProjectName() + '\'' +
+				", branchName='" + branch.getBranchName() + '\'' +
+				'}';
+	}
+}
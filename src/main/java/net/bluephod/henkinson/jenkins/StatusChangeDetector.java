@@ -0,0 +1,167 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compares each new status with the previous one and tells the registered listeners what changed.
+ * <p>
+ * The comparison is done branch by branch, using the project and branch name as the key. For every branch that appeared, disappeared,
+ * changed its color, started or finished a build, or went stale or was refreshed, one {@link StatusChange} is emitted. A single branch
+ * may cause several changes in one poll, e.g. when a build finished and the branch went red at the same time.
+ */
+public class StatusChangeDetector {
+	private final List<StatusChangeListener> listeners = new CopyOnWriteArrayList<>();
+	private Map<BranchKey, JenkinsBranchInfo> previousBranches = Collections.emptyMap();
+
+	public void addListener(StatusChangeListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(StatusChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Compares the given status with the one passed in the previous call and notifies the listeners about the differences.
+	 * <p>
+	 * On the very first call, every branch is reported as {@link StatusChange.Type#APPEARED}.
+	 *
+	 * @param status The status that was just retrieved.
+	 * @return All changes, in the order in which they were passed to the listeners.
+	 */
+	public synchronized List<StatusChange> update(JenkinsStatus status) {
+		Map<BranchKey, JenkinsBranchInfo> currentBranches = index(status);
+		List<StatusChange> changes = diff(previousBranches, currentBranches);
+		previousBranches = currentBranches;
+
+		for(StatusChange change : changes) {
+			for(StatusChangeListener listener : listeners) {
+				listener.statusChanged(change);
+			}
+		}
+
+		return changes;
+	}
+
+	/**
+	 * Computes the changes between two statuses without notifying anybody.
+	 *
+	 * @param before The older status.
+	 * @param after The newer status.
+	 * @return The changes.
+	 */
+	public static List<StatusChange> diff(JenkinsStatus before, JenkinsStatus after) {
+		return diff(index(before), index(after));
+	}
+
+	private static List<StatusChange> diff(final Map<BranchKey, JenkinsBranchInfo> before, final Map<BranchKey, JenkinsBranchInfo> after) {
+		List<StatusChange> changes = new ArrayList<>();
+
+		for(Map.Entry<BranchKey, JenkinsBranchInfo> entry : after.entrySet()) {
+			JenkinsBranchInfo current = entry.getValue();
+			JenkinsBranchInfo previous = before.get(entry.getKey());
+
+			if(previous == null) {
+				changes.add(new StatusChange(StatusChange.Type.APPEARED, null, current));
+			}
+			else if(!previous.equals(current)) {
+				addChanges(changes, previous, current);
+			}
+		}
+
+		for(Map.Entry<BranchKey, JenkinsBranchInfo> entry : before.entrySet()) {
+			if(!after.containsKey(entry.getKey())) {
+				changes.add(new StatusChange(StatusChange.Type.DISAPPEARED, entry.getValue(), null));
+			}
+		}
+
+		return changes;
+	}
+
+	private static void addChanges(final List<StatusChange> changes, final JenkinsBranchInfo previous, final JenkinsBranchInfo current) {
+		if(!previous.isBuilding() && current.isBuilding()) {
+			changes.add(new StatusChange(StatusChange.Type.STARTED_BUILDING, previous, current));
+		}
+		else if(previous.isBuilding() && !current.isBuilding()) {
+			changes.add(new StatusChange(StatusChange.Type.FINISHED_BUILDING, previous, current));
+		}
+
+		if(!previous.isStale() && current.isStale()) {
+			changes.add(new StatusChange(StatusChange.Type.WENT_STALE, previous, current));
+		}
+		else if(previous.isStale() && !current.isStale()) {
+			changes.add(new StatusChange(StatusChange.Type.REFRESHED, previous, current));
+		}
+
+		BuildColor previousColor = previous.getColor();
+		BuildColor currentColor = current.getColor();
+
+		if(previousColor == currentColor) {
+			return;
+		}
+
+		switch(currentColor) {
+			case RED:
+				changes.add(new StatusChange(StatusChange.Type.WENT_RED, previous, current));
+				break;
+			case YELLOW:
+				changes.add(new StatusChange(StatusChange.Type.WENT_YELLOW, previous, current));
+				break;
+			case GREEN:
+				if(previousColor == BuildColor.RED || previousColor == BuildColor.YELLOW) {
+					changes.add(new StatusChange(StatusChange.Type.RECOVERED, previous, current));
+				}
+				break;
+			default:
+				// grey, disabled and the like aren't worth an event.
+		}
+	}
+
+	private static Map<BranchKey, JenkinsBranchInfo> index(final JenkinsStatus status) {
+		if(status == null) {
+			return Collections.emptyMap();
+		}
+
+		Map<BranchKey, JenkinsBranchInfo> branches = new LinkedHashMap<>();
+
+		for(JenkinsBranchInfo info : status.getBranchInfos()) {
+			branches.put(new BranchKey(info.getProjectName(), info.getBranchName()), info);
+		}
+
+		return branches;
+	}
+
+	private static final class BranchKey {
+		private final String projectName;
+		private final String branchName;
+
+		BranchKey(final String projectName, final String branchName) {
+			this.projectName = projectName;
+			this.branchName = branchName;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			BranchKey that = (BranchKey) o;
+			return Objects.equals(projectName, that.projectName) &&
+					Objects.equals(branchName, that.branchName);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(projectName, branchName);
+		}
+	}
+}
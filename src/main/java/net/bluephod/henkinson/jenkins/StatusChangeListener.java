@@ -0,0 +1,16 @@
+package net.bluephod.henkinson.jenkins;
+
+/**
+ * Gets notified by the {@link StatusChangeDetector} about every change of a branch.
+ */
+@FunctionalInterface
+public interface StatusChangeListener {
+	/**
+	 * Called once for every change that was detected.
+	 * <p>
+	 * This is called on the polling thread, so don't do anything that takes long here.
+	 *
+	 * @param change The change.
+	 */
+	void statusChanged(StatusChange change);
+}
@@ -0,0 +1,144 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * The last known status, kept in a local file so there's something to show right after a restart.
+ * <p>
+ * A full first poll of a large Jenkins can take a minute, and without the snapshot the strip stays dark all that time. With it, the
+ * status from before the restart is shown right away - marked as stale, as nobody knows what happened in the meantime - until the first
+ * poll has replaced it.
+ * <p>
+ * The file is a gzipped binary list of the branches, which is only a few bytes per branch and quick to read even on a Raspberry Pi. It is
+ * written to a temporary file next to the snapshot first and then moved over it, so a crash or a power cut while saving leaves the
+ * previous snapshot intact instead of half a file.
+ */
+public class StatusSnapshot {
+	private static final int MAGIC = 0x484e4b53;
+	private static final int VERSION = 1;
+
+	private final Path file;
+
+	public StatusSnapshot(final Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Writes a status to the snapshot file, replacing the previous one.
+	 *
+	 * @param status The status to save.
+	 * @throws IOException If the snapshot can't be written. The previous snapshot is still there in that case.
+	 */
+	public void save(JenkinsStatus status) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+		try {
+			try(FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+				GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzipOut));
+				write(status, out);
+				out.flush();
+				gzipOut.finish();
+
+				// everything has to be on disk before the file takes the place of the old one.
+				fileOut.getFD().sync();
+			}
+
+			move(temp);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Reads the status from the snapshot file.
+	 * <p>
+	 * All branches are marked as stale, as they only tell what the status was when the snapshot was saved. Running builds aren't saved,
+	 * they are most likely finished by the time the snapshot is loaded.
+	 *
+	 * @return The saved status, or null if there is no snapshot or it can't be read.
+	 */
+	public JenkinsStatus load() {
+		try(InputStream fileIn = Files.newInputStream(file)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn)));
+			return read(in);
+		}
+		catch(NoSuchFileException e) {
+			Logger.info(String.format("No status snapshot found at %s, starting from scratch.", file));
+			return null;
+		}
+		catch(IOException e) {
+			Logger.warn(e, String.format("Could not read the status snapshot %s, starting from scratch.", file));
+			return null;
+		}
+	}
+
+	private void move(final Path temp) throws IOException {
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(AtomicMoveNotSupportedException e) {
+			Logger.debug(String.format("The file system of %s doesn't support atomic moves, replacing the snapshot the ordinary way.", file));
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void write(final JenkinsStatus status, final DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeLong(System.currentTimeMillis());
+		out.writeInt(status.getBranchInfos().size());
+
+		for(JenkinsBranchInfo branch : status.getBranchInfos()) {
+			out.writeUTF(branch.getProjectName());
+			out.writeUTF(branch.getBranchName());
+			out.writeUTF(branch.getColor().getName());
+		}
+	}
+
+	private JenkinsStatus read(final DataInputStream in) throws IOException {
+		if(in.readInt() != MAGIC) {
+			throw new IOException("Not a status snapshot.");
+		}
+
+		int version = in.readUnsignedByte();
+
+		if(version != VERSION) {
+			throw new IOException(String.format("Unsupported snapshot version %d.", version));
+		}
+
+		long savedAt = in.readLong();
+		int branches = in.readInt();
+		JenkinsStatus.Builder status = new JenkinsStatus.Builder();
+
+		for(int i = 0; i < branches; i++) {
+			String projectName = in.readUTF();
+			String branchName = in.readUTF();
+			BuildColor color = BuildColor.forName(in.readUTF());
+
+			status.add(new JenkinsBranchInfo(projectName, branchName, color, false, true));
+		}
+
+		Logger.info(String.format("Loaded %d branches from the status snapshot saved %ds ago.", branches,
+															(System.currentTimeMillis() - savedAt) / 1000));
+
+		return status.build();
+	}
+}
@@ -0,0 +1,251 @@
+package net.bluephod.henkinson.jenkins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.bluephod.henkinson.HenkinsonUtil;
+import net.bluephod.henkinson.config.BranchFilter;
+import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.jenkins.model.AbstractJenkinsObject;
+
+/**
+ * Decodes Jenkins API responses using Jackson's streaming parser.
+ * <p>
+ * The model classes in {@link net.bluephod.henkinson.jenkins.model} are convenient, but deserializing them means building whole object
+ * trees only to throw them away a moment later. This decoder walks through the tokens instead, looks at nothing but <code>name</code>,
+ * <code>url</code>, <code>color</code> and <code>jobs</code>, skips everything else without even creating strings for it and puts the
+ * results into a {@link JenkinsStatus} right away.
+ * <p>
+ * The rules are exactly the same as the ones {@link RemoteJenkins} applies to the model classes, so both ways result in the same status.
+ * Instances are stateless apart from the configuration and may be used by several threads at once.
+ */
+public class StreamingJenkinsDecoder {
+	private final JsonFactory factory = new JsonFactory();
+	private final Configuration config;
+
+	public StreamingJenkinsDecoder(final Configuration config) {
+		this.config = config;
+	}
+
+	/**
+	 * Decodes the root resource of the API.
+	 * <p>
+	 * Single-branch projects and multi-branch projects whose branches are contained in the response (which is the case if it was requested
+	 * using a tree query) go into the status of the result. All other projects are returned as references, as they need another request.
+	 *
+	 * @param in The stream from which the JSON can be read.
+	 * @return The decoded root resource.
+	 * @throws IOException If the stream can't be read or doesn't contain valid JSON.
+	 */
+	public DecodedRoot decodeRoot(InputStream in) throws IOException {
+		JenkinsStatus.Builder status = new JenkinsStatus.Builder();
+		List<ProjectReference> remoteProjects = new ArrayList<>();
+
+		try(JsonParser parser = factory.createParser(in)) {
+			expectObject(parser, parser.nextToken());
+
+			while(parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+
+				if("jobs".equals(field) && value == JsonToken.START_ARRAY) {
+					while(parser.nextToken() == JsonToken.START_OBJECT) {
+						decodeProjectDescriptor(parser, status, remoteProjects);
+					}
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+		}
+
+		return new DecodedRoot(status.build(), remoteProjects);
+	}
+
+	/**
+	 * Decodes the resource of a multi-branch project.
+	 * <p>
+	 * The project name is passed in rather than read from the response as we already know it from the root resource.
+	 *
+	 * @param in The stream from which the JSON can be read.
+	 * @param projectName The name under which the branches should be counted.
+	 * @return A status containing only the branches of this project.
+	 * @throws IOException If the stream can't be read or doesn't contain valid JSON.
+	 */
+	public JenkinsStatus decodeProject(InputStream in, String projectName) throws IOException {
+		JenkinsStatus.Builder status = new JenkinsStatus.Builder();
+		List<String> branchNames = new ArrayList<>();
+		List<String> branchColors = new ArrayList<>();
+
+		try(JsonParser parser = factory.createParser(in)) {
+			expectObject(parser, parser.nextToken());
+
+			while(parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+
+				if("jobs".equals(field) && value == JsonToken.START_ARRAY) {
+					decodeBranches(parser, branchNames, branchColors);
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+		}
+
+		addBranches(status, projectName, branchNames, branchColors);
+
+		return status.build();
+	}
+
+	private void decodeProjectDescriptor(final JsonParser parser, final JenkinsStatus.Builder status,
+			final List<ProjectReference> remoteProjects) throws IOException {
+		String name = null;
+		String url = null;
+		String color = null;
+		List<String> branchNames = null;
+		List<String> branchColors = null;
+
+		while(parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+
+			if("name".equals(field)) {
+				name = parser.getValueAsString();
+			}
+			else if("url".equals(field)) {
+				url = parser.getValueAsString();
+			}
+			else if("color".equals(field)) {
+				color = parser.getValueAsString();
+			}
+			else if("jobs".equals(field) && value == JsonToken.START_ARRAY) {
+				branchNames = new ArrayList<>();
+				branchColors = new ArrayList<>();
+				decodeBranches(parser, branchNames, branchColors);
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+
+		String projectName = HenkinsonUtil.urlDecode(name);
+
+		if(color != null) {
+			// single-branch project, counted as if it was a master branch.
+			status.updateStats(projectName, color);
+		}
+		else if(branchNames != null && !branchColors.contains(null)) {
+			// branches were delivered by a tree query and there are no nested folders.
+			addBranches(status, projectName, branchNames, branchColors);
+		}
+		else {
+			remoteProjects.add(new ProjectReference(projectName, url + AbstractJenkinsObject.API_URL_SUFFIX));
+		}
+	}
+
+	private void decodeBranches(final JsonParser parser, final List<String> branchNames, final List<String> branchColors)
+			throws IOException {
+		while(parser.nextToken() == JsonToken.START_OBJECT) {
+			String name = null;
+			String color = null;
+
+			while(parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+
+				if("name".equals(field)) {
+					name = parser.getValueAsString();
+				}
+				else if("color".equals(field)) {
+					color = parser.getValueAsString();
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+
+			branchNames.add(name);
+			branchColors.add(color);
+		}
+	}
+
+	private void addBranches(final JenkinsStatus.Builder status, final String projectName, final List<String> branchNames,
+			final List<String> branchColors) {
+		BranchFilter branchFilter = config.getBranchFilter();
+
+		for(int i = 0; i < branchNames.size(); i++) {
+			String branchName = HenkinsonUtil.urlDecode(branchNames.get(i));
+			String branchColor = branchColors.get(i);
+
+			// branches without a color are nested folders, which we don't support.
+			if(branchColor != null && branchFilter.isIncluded(projectName, branchName)) {
+				status.updateStats(projectName, branchName, branchColor);
+			}
+		}
+	}
+
+	private void expectObject(final JsonParser parser, final JsonToken token) throws IOException {
+		if(token != JsonToken.START_OBJECT) {
+			throw new IOException(String.format("Expected a JSON object but found %s at %s", token, parser.getCurrentLocation()));
+		}
+	}
+
+	/**
+	 * The result of decoding the root resource.
+	 */
+	public static final class DecodedRoot {
+		private final JenkinsStatus status;
+		private final List<ProjectReference> remoteProjects;
+
+		DecodedRoot(final JenkinsStatus status, final List<ProjectReference> remoteProjects) {
+			this.status = status;
+			this.remoteProjects = Collections.unmodifiableList(remoteProjects);
+		}
+
+		/**
+		 * The status of all projects that could be decoded from the root resource alone.
+		 *
+		 * @return The status for those projects.
+		 */
+		public JenkinsStatus getStatus() {
+			return status;
+		}
+
+		/**
+		 * The multi-branch projects for which the project resource has to be retrieved, in the order of the root resource.
+		 *
+		 * @return References to those projects.
+		 */
+		public List<ProjectReference> getRemoteProjects() {
+			return remoteProjects;
+		}
+	}
+
+	/**
+	 * The bare minimum we need to know about a project that has to be retrieved separately.
+	 */
+	public static final class ProjectReference {
+		private final String name;
+		private final String apiUrl;
+
+		ProjectReference(final String name, final String apiUrl) {
+			this.name = name;
+			this.apiUrl = apiUrl;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getApiUrl() {
+			return apiUrl;
+		}
+	}
+}
@@ -1,8 +1,6 @@
 package net.bluephod.henkinson.jenkins.model;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import net.bluephod.henkinson.HenkinsonUtil;
 
 /**
  * A simple abstract base class for the Jenkins API objects.
@@ -13,7 +11,7 @@ public abstract class AbstractJenkinsObject {
 	/**
 	 * The suffix that must be added to a view URL in order to get an API URL.
 	 */
-	protected static final String API_URL_SUFFIX = "api/json";
+	public static final String API_URL_SUFFIX = "api/json";
 
 	/**
 	 * Converts a Jenkins page URL into the corresponding API URL.
@@ -41,15 +39,6 @@ public abstract class AbstractJenkinsObject {
 	 * @return
 	 */
 	protected String urlDecode(String encoded) {
-		if(encoded == null) {
-			return "";
-		}
-
-		try {
-			return URLDecoder.decode(encoded, StandardCharsets.UTF_8.name());
-		}
-		catch(UnsupportedEncodingException e) {
-			throw new IllegalStateException("Wow, your JDK doesn't support UTF-8. You're fucked.", e);
-		}
+		return HenkinsonUtil.urlDecode(encoded);
 	}
 }
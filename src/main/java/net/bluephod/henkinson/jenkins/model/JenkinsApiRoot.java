@@ -1,5 +1,8 @@
 package net.bluephod.henkinson.jenkins.model;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -16,13 +19,39 @@ import net.bluephod.henkinson.config.Configuration;
  * As it is customary for a REST API, the project information included in that list doesn't contain all the data about the project, just
  * the bare minimum required to retrieve the actual data. I call that kind of object a "descriptor", so the objects in the list here are
  * instances of the class {@link JenkinsProjectDescriptor}, not instances of {@link JenkinsProject}.
+ * <p>
+ * If the resource is requested with the URL returned by {@link #getTreeQueryUrl(String)}, the descriptors also contain the branches of
+ * the multi-branch projects, so the whole thing can be processed without any further requests.
  */
 @JsonIgnoreProperties(ignoreUnknown=true)
 public class JenkinsApiRoot extends AbstractJenkinsObject {
+	/**
+	 * The Jenkins tree query that selects exactly the attributes we need for projects and their branches.
+	 */
+	public static final String TREE_QUERY = "jobs[name,url,color,jobs[name,color]]";
+
 	@JsonProperty("jobs")
 	private List<JenkinsProjectDescriptor> projects;
 
 	public List<JenkinsProjectDescriptor> getProjects() {
 		return projects;
 	}
+
+	/**
+	 * Returns the URL for retrieving the root resource including the branches of all projects.
+	 * <p>
+	 * Jenkins supports a <code>tree</code> parameter that tells it which attributes of which nested objects should be rendered. With
+	 * {@link #TREE_QUERY}, the response contains two levels of jobs, which is enough for single- and multi-branch projects.
+	 *
+	 * @param baseUrl The URL of the root resource, e.g. <code>http://yourjenkins.yourdomain/api/json</code>.
+	 * @return The URL for a tree query on the root resource.
+	 */
+	public static String getTreeQueryUrl(String baseUrl) {
+		try {
+			return baseUrl + (baseUrl.contains("?") ? "&" : "?") + "tree=" + URLEncoder.encode(TREE_QUERY, StandardCharsets.UTF_8.name());
+		}
+		catch(UnsupportedEncodingException e) {
+			throw new IllegalStateException("Wow, your JDK doesn't support UTF-8. You're fucked.", e);
+		}
+	}
 }
@@ -1,11 +1,8 @@
 package net.bluephod.henkinson.jenkins.model;
 
-import java.io.IOException;
-
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import net.bluephod.henkinson.config.Configuration;
 
 /**
  * A descriptor for a branch in a specific Jenkins project.
@@ -31,7 +28,7 @@ public class JenkinsBranchDescriptor extends AbstractJenkinsObject {
 	 * The name of the branch.
 	 *
 	 * This is information we actually need. While we don't care too much about the name of the project, the name of the branch is
-	 * important as we are only interested in the branches called "master".
+	 * important as it decides whether the branch is counted at all, see {@link net.bluephod.henkinson.config.BranchFilter}.
 	 *
 	 * @return The name of the branch.
 	 */
@@ -53,19 +50,14 @@ public class JenkinsBranchDescriptor extends AbstractJenkinsObject {
 	}
 
 	/**
-	 * Returns true if this branch is called "master".
-	 *
-	 * The main reason for including this method was that it was easier to make the master branch name configurable like this.
+	 * Returns true if this isn't a branch at all, but a folder nested inside the project.
+	 * <p>
+	 * Folders don't have a build status, so the only way to tell them apart from branches is the missing color.
 	 *
-	 * @return True if this branch is called "master".
+	 * @return True if this descriptor has no color.
 	 */
 	@JsonIgnore
-	public boolean isMaster() {
-		try {
-			return Configuration.getInstance().getMasterBranchName().equalsIgnoreCase(name);
-		}
-		catch(IOException e) {
-			throw new IllegalStateException("Configuration wasn't initialized properly.", e);
-		}
+	public boolean isFolder() {
+		return color == null;
 	}
 }
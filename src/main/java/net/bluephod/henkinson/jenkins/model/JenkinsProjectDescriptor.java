@@ -1,5 +1,8 @@
 package net.bluephod.henkinson.jenkins.model;
 
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -23,6 +26,12 @@ public class JenkinsProjectDescriptor extends AbstractJenkinsObject {
 	@JsonProperty
 	private String color;
 
+	/**
+	 * Only present if the root resource was retrieved using a tree query, see {@link JenkinsApiRoot#getTreeQueryUrl(String)}.
+	 */
+	@JsonProperty("jobs")
+	private List<JenkinsBranchDescriptor> branches;
+
 	/**
 	 * The name of the project.
 	 *
@@ -66,4 +75,29 @@ public class JenkinsProjectDescriptor extends AbstractJenkinsObject {
 	public String getColor() {
 		return color;
 	}
+
+	/**
+	 * The branches of a multi-branch project as contained in the root resource.
+	 * <p>
+	 * Jenkins only includes these if it was explicitly asked to do so using a tree query. For the default representation of the root
+	 * resource, this method returns null and the branches have to be retrieved from the project's API URL.
+	 *
+	 * @return The branch descriptors of the project or null if they aren't contained in the root resource.
+	 */
+	public List<JenkinsBranchDescriptor> getBranches() {
+		return branches;
+	}
+
+	/**
+	 * Returns true if the branches contained in this descriptor are all we need to know about the project.
+	 * <p>
+	 * This is not the case if the root resource didn't contain any branches at all or if one of the "branches" is actually a nested
+	 * folder, as the tree query doesn't descend any further than that.
+	 *
+	 * @return True if no further request for the project is required.
+	 */
+	@JsonIgnore
+	public boolean hasCompleteBranches() {
+		return branches != null && branches.stream().noneMatch(JenkinsBranchDescriptor::isFolder);
+	}
 }
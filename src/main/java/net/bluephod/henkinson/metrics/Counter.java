@@ -0,0 +1,36 @@
+package net.bluephod.henkinson.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A value that only ever goes up, like the number of failed requests.
+ */
+public final class Counter extends Metric implements CounterMBean {
+	private final LongAdder count = new LongAdder();
+
+	Counter() {
+	}
+
+	public void increment() {
+		count.increment();
+	}
+
+	public void add(long amount) {
+		count.add(amount);
+	}
+
+	@Override
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	String getType() {
+		return "counter";
+	}
+
+	@Override
+	void writeSamples(final StringBuilder out, final String name, final String labels) {
+		writeSample(out, name, labels, getCount());
+	}
+}
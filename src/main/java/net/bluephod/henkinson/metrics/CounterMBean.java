@@ -0,0 +1,8 @@
+package net.bluephod.henkinson.metrics;
+
+/**
+ * The JMX view of a {@link Counter}.
+ */
+public interface CounterMBean {
+	long getCount();
+}
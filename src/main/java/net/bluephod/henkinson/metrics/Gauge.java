@@ -0,0 +1,30 @@
+package net.bluephod.henkinson.metrics;
+
+/**
+ * A value that goes up and down, like the current polling interval.
+ */
+public final class Gauge extends Metric implements GaugeMBean {
+	private volatile long value;
+
+	Gauge() {
+	}
+
+	public void set(long value) {
+		this.value = value;
+	}
+
+	@Override
+	public long getValue() {
+		return value;
+	}
+
+	@Override
+	String getType() {
+		return "gauge";
+	}
+
+	@Override
+	void writeSamples(final StringBuilder out, final String name, final String labels) {
+		writeSample(out, name, labels, value);
+	}
+}
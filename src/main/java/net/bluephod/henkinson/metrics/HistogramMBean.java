@@ -0,0 +1,20 @@
+package net.bluephod.henkinson.metrics;
+
+/**
+ * The JMX view of a {@link Histogram}.
+ */
+public interface HistogramMBean {
+	long getCount();
+
+	long getSum();
+
+	double getMean();
+
+	long getMax();
+
+	long getMedian();
+
+	long get95thPercentile();
+
+	long get99thPercentile();
+}
@@ -0,0 +1,37 @@
+package net.bluephod.henkinson.metrics;
+
+/**
+ * Something that is measured and can be written in the text format of the <code>/metrics</code> endpoint.
+ * <p>
+ * Metrics are updated from the threads doing the actual work, including the render thread, so updating them must be cheap and must not
+ * allocate anything. Reading them is only done when somebody asks for them and may be a bit more expensive.
+ */
+public abstract class Metric {
+	Metric() {
+		// only the metrics of this package are supported.
+	}
+
+	/**
+	 * The type as it is announced in the <code># TYPE</code> line of the text format.
+	 */
+	abstract String getType();
+
+	/**
+	 * Writes the samples of this metric in the text format.
+	 *
+	 * @param out Where the samples go.
+	 * @param name The name of the metric.
+	 * @param labels The labels of this metric without braces, e.g. <code>url="http://jenkins"</code>, or an empty string.
+	 */
+	abstract void writeSamples(StringBuilder out, String name, String labels);
+
+	static void writeSample(final StringBuilder out, final String name, final String labels, final Object value) {
+		out.append(name);
+
+		if(!labels.isEmpty()) {
+			out.append('{').append(labels).append('}');
+		}
+
+		out.append(' ').append(value).append('\n');
+	}
+}
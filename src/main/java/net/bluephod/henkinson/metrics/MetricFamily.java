@@ -0,0 +1,91 @@
+package net.bluephod.henkinson.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * All metrics with the same name, told apart by the value of a single label, e.g. the request duration per host.
+ * <p>
+ * Metrics without labels are families as well, they simply only ever have one member. Members are never removed, so the label must only
+ * take a limited number of values - a host or a thread name is fine, a URL isn't.
+ *
+ * @param <M> The type of the metrics.
+ */
+public final class MetricFamily<M extends Metric> {
+	private final MetricsRegistry registry;
+	private final String name;
+	private final String help;
+	private final String labelName;
+	private final Class<M> type;
+	private final Supplier<M> factory;
+	private final Map<String, M> metrics = new ConcurrentHashMap<>();
+
+	MetricFamily(final MetricsRegistry registry, final String name, final String help, final String labelName, final Class<M> type,
+			final Supplier<M> factory) {
+		this.registry = registry;
+		this.name = name;
+		this.help = help;
+		this.labelName = labelName;
+		this.type = type;
+		this.factory = factory;
+	}
+
+	/**
+	 * Returns the metric for a label value, creating it if it doesn't exist yet.
+	 *
+	 * @param labelValue The value of the label.
+	 * @return The metric.
+	 */
+	public M get(String labelValue) {
+		// the plain lookup is the common case and doesn't allocate anything, unlike computeIfAbsent with a capturing lambda.
+		M metric = metrics.get(labelValue);
+
+		if(metric != null) {
+			return metric;
+		}
+
+		return metrics.computeIfAbsent(labelValue, key -> {
+			M created = factory.get();
+			registry.registerMBean(this, key, created);
+			return created;
+		});
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getLabelName() {
+		return labelName;
+	}
+
+	Class<M> getType() {
+		return type;
+	}
+
+	Map<String, M> getMetrics() {
+		return metrics;
+	}
+
+	void writeText(final StringBuilder out) {
+		if(metrics.isEmpty()) {
+			return;
+		}
+
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(metrics.values().iterator().next().getType()).append('\n');
+
+		metrics.forEach((labelValue, metric) -> metric.writeSamples(out, name, formatLabel(labelValue)));
+	}
+
+	private String formatLabel(final String labelValue) {
+		if(labelName == null) {
+			return "";
+		}
+
+		String escaped = labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+
+		return labelName + "=\"" + escaped + "\"";
+	}
+}
@@ -0,0 +1,127 @@
+package net.bluephod.henkinson.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * The place where all metrics of Henkinson live.
+ * <p>
+ * Like the {@link net.bluephod.henkinson.config.Configuration}, there's only one registry, so every part of the code can get its
+ * metrics without having them passed around. Metrics are created when they are first asked for and live as long as the process does.
+ * The classes that update metrics should look them up once and keep them in a field, the lookup itself isn't meant for the hot path.
+ * <p>
+ * The metrics can be read in two ways: as text via {@link #writeText(StringBuilder)}, which is what the {@link MetricsServer} serves,
+ * and via JMX once {@link #enableJmx()} was called. The JMX beans are named
+ * <code>net.bluephod.henkinson:type=&lt;Histogram|Counter|Gauge&gt;,name=&lt;metric name&gt;</code>, plus the label if there is one.
+ */
+public final class MetricsRegistry {
+	static final String JMX_DOMAIN = "net.bluephod.henkinson";
+
+	private static final MetricsRegistry instance = new MetricsRegistry();
+
+	private final Map<String, MetricFamily<?>> families = new TreeMap<>();
+	private MBeanServer mbeanServer;
+
+	private MetricsRegistry() {
+	}
+
+	public static MetricsRegistry getInstance() {
+		return instance;
+	}
+
+	public Histogram histogram(String name, String help) {
+		return histograms(name, help, null).get("");
+	}
+
+	public MetricFamily<Histogram> histograms(String name, String help, String labelName) {
+		return family(name, help, labelName, Histogram.class, Histogram::new);
+	}
+
+	public Counter counter(String name, String help) {
+		return counters(name, help, null).get("");
+	}
+
+	public MetricFamily<Counter> counters(String name, String help, String labelName) {
+		return family(name, help, labelName, Counter.class, Counter::new);
+	}
+
+	public Gauge gauge(String name, String help) {
+		return gauges(name, help, null).get("");
+	}
+
+	public MetricFamily<Gauge> gauges(String name, String help, String labelName) {
+		return family(name, help, labelName, Gauge.class, Gauge::new);
+	}
+
+	/**
+	 * Registers all metrics with the platform MBean server, including those created later on.
+	 */
+	public synchronized void enableJmx() {
+		if(mbeanServer != null) {
+			return;
+		}
+
+		mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		for(MetricFamily<?> family : families.values()) {
+			family.getMetrics().forEach((labelValue, metric) -> registerMBean(family, labelValue, metric));
+		}
+	}
+
+	/**
+	 * Writes all metrics in the text format Prometheus understands, which is readable enough for humans as well.
+	 *
+	 * @param out Where the metrics go.
+	 */
+	public synchronized void writeText(StringBuilder out) {
+		for(MetricFamily<?> family : families.values()) {
+			family.writeText(out);
+		}
+	}
+
+	synchronized void registerMBean(final MetricFamily<?> family, final String labelValue, final Metric metric) {
+		if(mbeanServer == null) {
+			return;
+		}
+
+		StringBuilder name = new StringBuilder(JMX_DOMAIN).append(":type=").append(metric.getClass().getSimpleName())
+				.append(",name=").append(family.getName());
+
+		if(family.getLabelName() != null) {
+			name.append(',').append(family.getLabelName()).append('=').append(ObjectName.quote(labelValue));
+		}
+
+		try {
+			mbeanServer.registerMBean(metric, new ObjectName(name.toString()));
+		}
+		catch(JMException e) {
+			Logger.warn(e, String.format("Could not register metric %s with JMX.", name));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized <M extends Metric> MetricFamily<M> family(final String name, final String help, final String labelName,
+			final Class<M> type, final Supplier<M> factory) {
+		MetricFamily<?> family = families.get(name);
+
+		if(family == null) {
+			MetricFamily<M> created = new MetricFamily<>(this, name, help, labelName, type, factory);
+			families.put(name, created);
+			return created;
+		}
+
+		if(family.getType() != type) {
+			throw new IllegalArgumentException(String.format("Metric %s is a %s, not a %s.", name, family.getType().getSimpleName(),
+																											 type.getSimpleName()));
+		}
+
+		return (MetricFamily<M>) family;
+	}
+}
@@ -0,0 +1,84 @@
+package net.bluephod.henkinson.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.pmw.tinylog.Logger;
+
+/**
+ * A tiny http server that serves the metrics as plain text at <code>/metrics</code>.
+ * <p>
+ * It uses the http server that comes with the JDK, so there's no need for another dependency, and it answers requests on a single
+ * thread of its own, so it never gets in the way of polling or rendering.
+ */
+public class MetricsServer implements AutoCloseable {
+	private final MetricsRegistry registry;
+	private final int port;
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public MetricsServer(final MetricsRegistry registry, final int port) {
+		this.registry = registry;
+		this.port = port;
+	}
+
+	public synchronized void start() throws IOException {
+		if(server != null) {
+			throw new IllegalStateException("Metrics server has already been started.");
+		}
+
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/metrics", this::handle);
+		server.setExecutor(executor);
+		server.start();
+
+		Logger.info(String.format("Serving metrics at http://localhost:%d/metrics", port));
+	}
+
+	@Override
+	public synchronized void close() {
+		if(server == null) {
+			return;
+		}
+
+		server.stop(0);
+		executor.shutdownNow();
+		server = null;
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try {
+			if(!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			StringBuilder text = new StringBuilder(16384);
+			registry.writeText(text);
+			byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try(OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package net.bluephod.henkinson.visualization;
+
+import java.util.concurrent.TimeUnit;
+
+import com.diozero.ws281xj.PixelColour;
+
+/**
+ * An animation running for a fixed amount of wall-clock time.
+ * <p>
+ * An animation doesn't know anything about steps or frames. Its progress is computed from the time that has passed since it started, so
+ * it takes the same time no matter how many frames are rendered while it's running - a slow machine just shows fewer of them.
+ * <p>
+ * All times are in the {@link System#nanoTime()} time base.
+ */
+public final class Animation {
+	private final long startNanos;
+	private final long durationNanos;
+	private final Easing easing;
+
+	/**
+	 * Creates an animation.
+	 *
+	 * @param startNanos The time at which the animation starts.
+	 * @param durationMillis The duration of the animation in ms.
+	 * @param easing The easing curve to apply to the progress.
+	 */
+	public Animation(final long startNanos, final long durationMillis, final Easing easing) {
+		this.startNanos = startNanos;
+		this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		this.easing = easing;
+	}
+
+	/**
+	 * Returns the eased progress of the animation at the given time.
+	 *
+	 * @param nowNanos The time.
+	 * @return The progress in the range of 0 to 1.
+	 */
+	public double getProgress(long nowNanos) {
+		if(isFinished(nowNanos)) {
+			return 1;
+		}
+
+		double elapsed = Math.max(0, nowNanos - startNanos);
+
+		return easing.apply(elapsed / durationNanos);
+	}
+
+	public boolean isFinished(long nowNanos) {
+		return nowNanos - startNanos >= durationNanos;
+	}
+
+	/**
+	 * Interpolates linearly between two values.
+	 *
+	 * @param from The value at progress 0.
+	 * @param to The value at progress 1.
+	 * @param progress The progress.
+	 * @return The interpolated value.
+	 */
+	public static double interpolate(double from, double to, double progress) {
+		return from + (to - from) * progress;
+	}
+
+	/**
+	 * Interpolates between two colors component by component.
+	 *
+	 * @param from The color at progress 0.
+	 * @param to The color at progress 1.
+	 * @param progress The progress.
+	 * @return The interpolated color.
+	 */
+	public static int interpolateColor(int from, int to, double progress) {
+		if(from == to) {
+			return to;
+		}
+
+		return PixelColour.createColourRGB(
+				interpolateComponent(PixelColour.getRedComponent(from), PixelColour.getRedComponent(to), progress),
+				interpolateComponent(PixelColour.getGreenComponent(from), PixelColour.getGreenComponent(to), progress),
+				interpolateComponent(PixelColour.getBlueComponent(from), PixelColour.getBlueComponent(to), progress));
+	}
+
+	private static int interpolateComponent(int from, int to, double progress) {
+		return (int) Math.round(interpolate(from, to, progress));
+	}
+}
@@ -0,0 +1,124 @@
+package net.bluephod.henkinson.visualization;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.diozero.ws281xj.PixelColour;
+import net.bluephod.henkinson.jenkins.JenkinsBranchInfo;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+
+/**
+ * Shows every branch at a place of its own.
+ * <p>
+ * The branches are spread over the strip in the order in which Jenkins lists them, so a project always shows up at about the same spot
+ * and you can learn to tell which one broke just by looking at the strip. If there are more branches than columns, some of them share a
+ * column and the worst one wins. Branches whose status couldn't be refreshed are shown dimmed.
+ */
+public class BranchMapLayer implements StripLayer {
+	private static final int TRANSITION_DURATION = 500;
+
+	private static final int COLOR_GREEN = PixelColour.createColourRGB(0, 255, 0);
+	private static final int COLOR_YELLOW = PixelColour.createColourRGB(255, 255, 0);
+	private static final int COLOR_RED = PixelColour.createColourRGB(255, 0, 0);
+
+	private final int columns;
+	private final AtomicReference<int[]> targetFrame = new AtomicReference<>();
+
+	// only touched by the render thread.
+	private int[] currentTarget;
+	private int[] transitionFrom;
+	private Animation animation;
+
+	public BranchMapLayer(final int columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public void update(final JenkinsStatus status) {
+		List<JenkinsBranchInfo> branches = status.getBranchInfos();
+		int[] frame = new int[columns];
+
+		if(!branches.isEmpty()) {
+			for(int column = 0; column < columns; column++) {
+				int first = column * branches.size() / columns;
+				int last = Math.max(first, (column + 1) * branches.size() / columns - 1);
+				int color = 0;
+				int severity = -1;
+
+				for(int index = first; index <= last; index++) {
+					JenkinsBranchInfo branch = branches.get(index);
+					int branchSeverity = getSeverity(branch);
+
+					if(branchSeverity > severity) {
+						severity = branchSeverity;
+						color = getColor(branch);
+					}
+				}
+
+				frame[column] = color;
+			}
+		}
+
+		targetFrame.set(frame);
+	}
+
+	@Override
+	public boolean draw(final int[] buffer, final long now) {
+		int[] target = targetFrame.get();
+
+		if(target != null && target != currentTarget) {
+			transitionFrom = buffer.clone();
+			currentTarget = target;
+			animation = new Animation(now, TRANSITION_DURATION, Easing.LINEAR);
+		}
+
+		if(animation == null) {
+			return false;
+		}
+
+		double progress = animation.getProgress(now);
+
+		for(int column = 0; column < columns; column++) {
+			buffer[column] = Animation.interpolateColor(transitionFrom[column], currentTarget[column], progress);
+		}
+
+		if(animation.isFinished(now)) {
+			animation = null;
+		}
+
+		return true;
+	}
+
+	private int getSeverity(JenkinsBranchInfo branch) {
+		switch(branch.getColor()) {
+			case RED:
+				return 3;
+			case YELLOW:
+				return 2;
+			case GREEN:
+				return 1;
+			default:
+				return 0;
+		}
+	}
+
+	private int getColor(JenkinsBranchInfo branch) {
+		int color;
+
+		switch(branch.getColor()) {
+			case RED:
+				color = COLOR_RED;
+				break;
+			case YELLOW:
+				color = COLOR_YELLOW;
+				break;
+			case GREEN:
+				color = COLOR_GREEN;
+				break;
+			default:
+				return 0;
+		}
+
+		return branch.isStale() ? Animation.interpolateColor(color, 0, 0.75) : color;
+	}
+}
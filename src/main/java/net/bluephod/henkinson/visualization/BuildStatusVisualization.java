@@ -9,9 +9,9 @@ import net.bluephod.henkinson.jenkins.JenkinsStatus;
 /**
  * Interface for build status visualizations.
  * <p>
- * The first version of this software only contains one visualization, and that's a classic VU meter. Many oder visualizations are
- * conceivable, and there'll possibly be a version of the Henkinson in which a list of visualizations can be defined as a "playlist". In
- * order to make that improvement easy, an interface has been extracted early on.
+ * The first version of this software only contained one visualization, and that's a classic VU meter. Many oder visualizations are
+ * conceivable, so the {@link CompositorBuildStatusVisualization} now plays a "playlist" of them. The visualizations in that playlist are
+ * {@link StripLayer}s, which only draw into a buffer and leave talking to the strip to the compositor.
  * <p>
  * (Hint: Creating new visualizations would be the part of the software for which contributions by other people would be the most
  * appreciated.)
@@ -0,0 +1,184 @@
+package net.bluephod.henkinson.visualization;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.diozero.ws281xj.LedDriverInterface;
+import net.bluephod.henkinson.Henkinson;
+import net.bluephod.henkinson.config.Configuration;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Runs a playlist of {@link StripLayer}s on the strip.
+ * <p>
+ * The layers listed in {@link Configuration#getVisualizations()} take turns: every {@link Configuration#getRotationInterval()} ms the
+ * next one is crossfaded in over {@link Configuration#getCrossfadeDuration()} ms. The layers listed in
+ * {@link Configuration#getOverlays()} are always shown on top of that, blended according to their alpha values.
+ * <p>
+ * Every layer draws into an off-screen buffer of its own, and only the ones that are currently visible are asked to draw at all. The
+ * buffers are then combined in a single pass over the columns, and exactly one frame is pushed to the strip per tick of the render loop -
+ * or none, if no layer changed anything.
+ */
+public class CompositorBuildStatusVisualization implements BuildStatusVisualization {
+	private static final int RGB_MASK = 0xffffff;
+
+	private Configuration config;
+	private Henkinson henkinson;
+
+	private LedDriverInterface driver;
+	private HenkinsonCanvas canvas;
+	private RenderLoop renderLoop;
+	private List<StripLayer> playlist;
+	private List<StripLayer> overlays;
+
+	// everything below is only touched by the render thread.
+	private int[][] playlistBuffers;
+	private int[][] overlayBuffers;
+	private int[] output;
+	private int active;
+	private int incoming = -1;
+	private Animation crossfade;
+	private long nextRotation;
+
+	/**
+	 * Creates a visualization that uses the driver configured by {@link LedDrivers#create(Configuration)}.
+	 */
+	public CompositorBuildStatusVisualization() {
+	}
+
+	/**
+	 * Creates a visualization that uses the given driver.
+	 *
+	 * @param driver The driver of the strip.
+	 */
+	public CompositorBuildStatusVisualization(final LedDriverInterface driver) {
+		this.driver = driver;
+	}
+
+	@Override
+	public void init(Configuration config, Henkinson henkinson) {
+		this.config = config;
+		this.henkinson = henkinson;
+
+		if(driver == null) {
+			driver = LedDrivers.create(config);
+		}
+
+		canvas = new HenkinsonCanvas(driver);
+
+		int columns = canvas.getNumberOfColumns();
+		List<String> playlistNames = config.getVisualizations();
+
+		if(playlistNames.isEmpty()) {
+			Logger.warn("No visualizations configured, using the VU meter.");
+			playlistNames = Collections.singletonList("vumeter");
+		}
+
+		playlist = createLayers(playlistNames, columns);
+		overlays = createLayers(config.getOverlays(), columns);
+		playlistBuffers = new int[playlist.size()][columns];
+		overlayBuffers = new int[overlays.size()][columns];
+		output = new int[columns];
+		nextRotation = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getRotationInterval());
+
+		Logger.info(String.format("Playing %s with overlays %s", playlistNames, config.getOverlays()));
+
+		renderLoop = new RenderLoop("strip-render", config.getFrameRate(), this::renderFrame);
+		renderLoop.start();
+	}
+
+	@Override
+	public void update(JenkinsStatus status) {
+		for(StripLayer layer : playlist) {
+			layer.update(status);
+		}
+
+		for(StripLayer layer : overlays) {
+			layer.update(status);
+		}
+	}
+
+	private void renderFrame(long now) {
+		if(crossfade == null && playlist.size() > 1 && now - nextRotation >= 0) {
+			incoming = (active + 1) % playlist.size();
+			crossfade = new Animation(now, config.getCrossfadeDuration(), Easing.EASE_IN_OUT);
+
+			Logger.debug(String.format("Rotating to visualization %d", incoming));
+		}
+
+		boolean changed = playlist.get(active).draw(playlistBuffers[active], now);
+
+		if(crossfade != null) {
+			playlist.get(incoming).draw(playlistBuffers[incoming], now);
+			changed = true;
+		}
+
+		for(int i = 0; i < overlays.size(); i++) {
+			changed |= overlays.get(i).draw(overlayBuffers[i], now);
+		}
+
+		if(!changed) {
+			return;
+		}
+
+		blend(crossfade == null ? 0 : crossfade.getProgress(now));
+
+		canvas.setFrame(output);
+		canvas.render();
+
+		if(crossfade != null && crossfade.isFinished(now)) {
+			active = incoming;
+			incoming = -1;
+			crossfade = null;
+			nextRotation = now + TimeUnit.MILLISECONDS.toNanos(config.getRotationInterval());
+		}
+	}
+
+	private void blend(double crossfadeProgress) {
+		int[] activeBuffer = playlistBuffers[active];
+		int[] incomingBuffer = incoming < 0 ? null : playlistBuffers[incoming];
+
+		for(int column = 0; column < output.length; column++) {
+			int color = activeBuffer[column] & RGB_MASK;
+
+			if(incomingBuffer != null) {
+				color = Animation.interpolateColor(color, incomingBuffer[column] & RGB_MASK, crossfadeProgress);
+			}
+
+			for(int[] overlayBuffer : overlayBuffers) {
+				int alpha = overlayBuffer[column] >>> 24;
+
+				if(alpha > 0) {
+					color = Animation.interpolateColor(color, overlayBuffer[column] & RGB_MASK, alpha / 255.0);
+				}
+			}
+
+			output[column] = color;
+		}
+	}
+
+	private List<StripLayer> createLayers(List<String> names, int columns) {
+		List<StripLayer> layers = new ArrayList<>(names.size());
+
+		for(String name : names) {
+			layers.add(StripLayer.forName(name, columns));
+		}
+
+		return layers;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(renderLoop != null) {
+			renderLoop.stop();
+		}
+
+		if(canvas != null) {
+			canvas.close();
+		}
+	}
+}
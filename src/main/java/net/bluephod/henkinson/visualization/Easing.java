@@ -0,0 +1,50 @@
+package net.bluephod.henkinson.visualization;
+
+/**
+ * Easing curves for animations.
+ * <p>
+ * An easing curve maps the linear progress of an animation (the fraction of its duration that has passed) to the progress that is
+ * actually shown. Both are in the range of 0 to 1, and every curve starts at 0 and ends at 1.
+ */
+public enum Easing {
+	LINEAR {
+		@Override
+		public double apply(final double t) {
+			return t;
+		}
+	},
+
+	/**
+	 * Starts fast and slows down towards the end.
+	 */
+	EASE_OUT {
+		@Override
+		public double apply(final double t) {
+			double inverse = 1 - t;
+			return 1 - inverse * inverse * inverse;
+		}
+	},
+
+	/**
+	 * Starts slowly, speeds up and slows down again towards the end.
+	 */
+	EASE_IN_OUT {
+		@Override
+		public double apply(final double t) {
+			if(t < 0.5) {
+				return 4 * t * t * t;
+			}
+
+			double inverse = -2 * t + 2;
+			return 1 - inverse * inverse * inverse / 2;
+		}
+	};
+
+	/**
+	 * Applies the curve.
+	 *
+	 * @param t The linear progress in the range of 0 to 1.
+	 * @return The eased progress in the range of 0 to 1.
+	 */
+	public abstract double apply(double t);
+}
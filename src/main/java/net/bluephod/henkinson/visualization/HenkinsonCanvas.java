@@ -2,36 +2,127 @@ package net.bluephod.henkinson.visualization;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 
 import com.diozero.ws281xj.LedDriverInterface;
 import com.diozero.ws281xj.PixelColour;
 
+/**
+ * The drawing surface of the strip.
+ * <p>
+ * The strip is folded in the middle, so a column consists of two pixels that always have the same color. All drawing goes to a frame
+ * buffer in memory and reading colors never talks to the driver. The driver only gets to see a frame when {@link #render()} is called,
+ * which makes this a double buffered canvas: the back buffer is what's being drawn, the front buffer is what the strip shows right now.
+ * <p>
+ * Rendering only pushes the columns that actually differ from the front buffer, and if no column differs, the driver isn't bothered at
+ * all - pushing a frame out to a WS281x strip takes a DMA transfer, and there's no point in doing that for a frame that looks exactly like
+ * the previous one.
+ * <p>
+ * Canvases are not thread-safe. They're meant to be used by a single render thread.
+ */
 public class HenkinsonCanvas implements Closeable {
 	private LedDriverInterface driver;
 
+	private final int numberOfColumns;
+	private final int[] backBuffer;
+	private final int[] frontBuffer;
+
+	// the range of columns written since the last render, dirtyTo is exclusive.
+	private int dirtyFrom;
+	private int dirtyTo;
+
 	public HenkinsonCanvas(final LedDriverInterface driver) {
 		this.driver = driver;
+		this.numberOfColumns = driver.getNumPixels() / 2;
+		this.frontBuffer = new int[numberOfColumns];
+
+		for(int column = 0; column < numberOfColumns; column++) {
+			frontBuffer[column] = driver.getPixelColour(column);
+		}
+
+		this.backBuffer = Arrays.copyOf(frontBuffer, numberOfColumns);
+
+		clearDirtyRange();
 	}
 
 	public int getNumberOfColumns() {
-		return driver.getNumPixels() / 2;
+		return numberOfColumns;
 	}
 
 	public void setColumnColor(int column, int color) {
-		driver.setPixelColour(column, color);
-		driver.setPixelColour(driver.getNumPixels() - column - 1, color);
+		backBuffer[column] = color;
+		markDirty(column, column + 1);
+	}
+
+	/**
+	 * Sets a range of columns to the same color.
+	 *
+	 * @param startColumn The first column to set.
+	 * @param count The number of columns to set.
+	 * @param color The color.
+	 */
+	public void fillColumns(int startColumn, int count, int color) {
+		if(count <= 0) {
+			return;
+		}
+
+		Arrays.fill(backBuffer, startColumn, startColumn + count, color);
+		markDirty(startColumn, startColumn + count);
+	}
+
+	/**
+	 * Copies a whole frame into the back buffer.
+	 *
+	 * @param colors The colors of the columns, starting with column 0. Columns beyond the end of the array are left as they are.
+	 */
+	public void setFrame(int[] colors) {
+		int count = Math.min(colors.length, numberOfColumns);
+
+		System.arraycopy(colors, 0, backBuffer, 0, count);
+		markDirty(0, count);
 	}
 
-	public void render() {
-		driver.render();
+	/**
+	 * Pushes the back buffer out to the strip.
+	 *
+	 * @return True if the frame differed from the one shown before and was rendered, false if there was nothing to do.
+	 */
+	public boolean render() {
+		boolean changed = false;
+		int numPixels = driver.getNumPixels();
+
+		for(int column = dirtyFrom; column < dirtyTo; column++) {
+			int color = backBuffer[column];
+
+			if(frontBuffer[column] != color) {
+				driver.setPixelColour(column, color);
+				driver.setPixelColour(numPixels - column - 1, color);
+				frontBuffer[column] = color;
+				changed = true;
+			}
+		}
+
+		clearDirtyRange();
+
+		if(changed) {
+			driver.render();
+		}
+
+		return changed;
 	}
 
 	public int getRedComponent(final int column) {
 		return PixelColour.getRedComponent(getColumnColor(column));
 	}
 
+	/**
+	 * Returns the color of a column as drawn, which is not necessarily rendered yet.
+	 *
+	 * @param column The column.
+	 * @return The color of the column in the back buffer.
+	 */
 	public int getColumnColor(int column) {
-		return driver.getPixelColour(column);
+		return backBuffer[column];
 	}
 
 	public int getGreenComponent(final int column) {
@@ -47,4 +138,14 @@ public class HenkinsonCanvas implements Closeable {
 		driver.allOff();
 		driver.close();
 	}
+
+	private void markDirty(int from, int to) {
+		dirtyFrom = Math.min(dirtyFrom, from);
+		dirtyTo = Math.max(dirtyTo, to);
+	}
+
+	private void clearDirtyRange() {
+		dirtyFrom = numberOfColumns;
+		dirtyTo = 0;
+	}
 }
@@ -0,0 +1,42 @@
+package net.bluephod.henkinson.visualization;
+
+import com.diozero.ws281xj.LedDriverInterface;
+import com.diozero.ws281xj.rpiws281x.WS281x;
+import net.bluephod.henkinson.config.Configuration;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Creates the LED driver for the strip according to the configuration.
+ */
+public final class LedDrivers {
+	private static final int MAX_RECORDED_FRAMES = 1000;
+
+	private LedDrivers() {
+	}
+
+	/**
+	 * Creates the driver for the strip.
+	 * <p>
+	 * That's the real WS281x driver unless {@link Configuration#isStripSimulated()} is set, in which case a {@link SimulatedLedDriver} is
+	 * used, so the strip code can run on machines without one.
+	 *
+	 * @param config The configuration.
+	 * @return The driver.
+	 */
+	public static LedDriverInterface create(Configuration config) {
+		if(!config.isStripSimulated()) {
+			return new WS281x(config.getStripGpio(), config.getBrightness(), config.getPixels());
+		}
+
+		boolean mirror = config.isStripMirrorEnabled();
+
+		if(mirror && config.isGuiEnabled()) {
+			Logger.warn("Can't mirror the simulated strip to the terminal while the GUI is running, mirroring disabled.");
+			mirror = false;
+		}
+
+		Logger.info(String.format("Using a simulated strip with %d pixels.", config.getPixels()));
+
+		return new SimulatedLedDriver(config.getPixels(), config.getBrightness(), MAX_RECORDED_FRAMES, mirror ? System.out : null);
+	}
+}
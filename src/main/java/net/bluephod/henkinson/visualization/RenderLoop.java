@@ -0,0 +1,150 @@
+package net.bluephod.henkinson.visualization;
+
+import java.util.concurrent.TimeUnit;
+
+import net.bluephod.henkinson.metrics.Counter;
+import net.bluephod.henkinson.metrics.Histogram;
+import net.bluephod.henkinson.metrics.MetricsRegistry;
+import org.pmw.tinylog.Logger;
+
+/**
+ * A thread rendering frames at a fixed rate.
+ * <p>
+ * Frames are due at fixed points in time, one frame interval apart. Each frame gets the time it is rendered at, so time-based
+ * {@link Animation}s show whatever they're supposed to show at that moment. If rendering a frame takes longer than the frame budget, the
+ * frames whose time has passed in the meantime are dropped instead of being rendered late, and the loop continues with the next frame
+ * that's still in the future. That way, animations take the same time on a fast and a slow machine, the slow one just looks a bit
+ * choppier.
+ * <p>
+ * The time each frame takes and the dropped frames are recorded in the {@link MetricsRegistry}, labelled with the name of the loop.
+ */
+public class RenderLoop {
+	private final String name;
+	private final long frameNanos;
+	private final FrameRenderer renderer;
+	private final Histogram frameDuration;
+	private final Counter droppedFramesCounter;
+
+	private Thread thread;
+	private volatile long droppedFrames;
+
+	/**
+	 * Creates a render loop.
+	 *
+	 * @param name The name of the render thread.
+	 * @param frameRate The number of frames per second.
+	 * @param renderer The renderer that is called for each frame.
+	 */
+	public RenderLoop(final String name, final int frameRate, final FrameRenderer renderer) {
+		this.name = name;
+		this.frameNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, frameRate);
+		this.renderer = renderer;
+
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		frameDuration = metrics.histograms("henkinson_frame_duration_us", "Time it took to render a frame.", "loop").get(name);
+		droppedFramesCounter = metrics.counters("henkinson_dropped_frames_total", "Number of frames dropped because rendering fell behind.",
+																						"loop").get(name);
+	}
+
+	public synchronized void start() {
+		if(thread != null) {
+			throw new IllegalStateException("Render loop " + name + " has already been started.");
+		}
+
+		thread = new Thread(this::run, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the render thread and waits for it to finish the frame it's working on.
+	 */
+	public synchronized void stop() {
+		if(thread == null) {
+			return;
+		}
+
+		thread.interrupt();
+
+		try {
+			thread.join();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		thread = null;
+	}
+
+	/**
+	 * The time available for rendering a single frame.
+	 *
+	 * @return The frame budget in ns.
+	 */
+	public long getFrameNanos() {
+		return frameNanos;
+	}
+
+	/**
+	 * The number of frames that were dropped because rendering fell behind.
+	 *
+	 * @return The number of dropped frames since the loop was started.
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	private void run() {
+		Logger.info(String.format("Started render thread %s.", name));
+
+		long nextFrame = System.nanoTime();
+
+		while(!Thread.currentThread().isInterrupted()) {
+			long frameStart = System.nanoTime();
+
+			try {
+				renderer.renderFrame(frameStart);
+			}
+			catch(RuntimeException e) {
+				// a broken frame shouldn't stop the animations for good.
+				Logger.error(e, "Could not render frame.");
+			}
+
+			nextFrame += frameNanos;
+			long now = System.nanoTime();
+			frameDuration.record(TimeUnit.NANOSECONDS.toMicros(now - frameStart));
+
+			if(now - nextFrame >= 0) {
+				long behind = (now - nextFrame) / frameNanos + 1;
+				droppedFrames += behind;
+				droppedFramesCounter.add(behind);
+				nextFrame += behind * frameNanos;
+
+				Logger.trace(String.format("Frame took too long, dropped %d frames.", behind));
+			}
+
+			try {
+				TimeUnit.NANOSECONDS.sleep(nextFrame - now);
+			}
+			catch(InterruptedException e) {
+				// that's how we're told to stop, so there's no need to complain about it.
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		Logger.info(String.format("Render thread %s stopped.", name));
+	}
+
+	/**
+	 * Renders a single frame.
+	 */
+	@FunctionalInterface
+	public interface FrameRenderer {
+		/**
+		 * Renders the frame for the given point in time.
+		 *
+		 * @param frameTimeNanos The time of the frame in the {@link System#nanoTime()} time base.
+		 */
+		void renderFrame(long frameTimeNanos);
+	}
+}
@@ -0,0 +1,60 @@
+package net.bluephod.henkinson.visualization;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+
+/**
+ * An overlay that shows a white light running back and forth over the strip while builds are running.
+ * <p>
+ * When no build is running, the layer is completely transparent.
+ */
+public class RunningBuildsLayer implements StripLayer {
+	private static final long PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(3000);
+	private static final double TAIL_COLUMNS = 4;
+	private static final int MAX_ALPHA = 192;
+	private static final int COLOR_WHITE = 0xffffff;
+
+	private final int columns;
+	private volatile boolean building;
+
+	// only touched by the render thread.
+	private boolean visible;
+
+	public RunningBuildsLayer(final int columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public void update(final JenkinsStatus status) {
+		building = status.getBuilding() > 0;
+	}
+
+	@Override
+	public boolean draw(final int[] buffer, final long now) {
+		if(!building) {
+			if(!visible) {
+				return false;
+			}
+
+			Arrays.fill(buffer, 0);
+			visible = false;
+			return true;
+		}
+
+		// the position goes from 0 to the last column and back once per period.
+		double phase = (double) Math.floorMod(now, PERIOD_NANOS) / PERIOD_NANOS;
+		double position = (1 - Math.abs(2 * phase - 1)) * (columns - 1);
+
+		for(int column = 0; column < columns; column++) {
+			double intensity = Math.max(0, 1 - Math.abs(column - position) / TAIL_COLUMNS);
+			int alpha = (int) Math.round(intensity * MAX_ALPHA);
+
+			buffer[column] = (alpha << 24) | COLOR_WHITE;
+		}
+
+		visible = true;
+		return true;
+	}
+}
@@ -0,0 +1,212 @@
+package net.bluephod.henkinson.visualization;
+
+import java.awt.Color;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import com.diozero.ws281xj.LedDriverInterface;
+import com.diozero.ws281xj.PixelColour;
+
+/**
+ * An LED driver that doesn't need any hardware.
+ * <p>
+ * The pixels live in memory, and every rendered frame is recorded together with the time at which it was rendered, so you can check
+ * what a visualization showed, how many frames it pushed and how long its animations took on any machine. Only the most recent frames
+ * are kept.
+ * <p>
+ * Optionally, every frame is also mirrored to a terminal as a single line of colored blocks using ANSI truecolor escape sequences. Don't
+ * do that while the GUI is running, as both want to own the terminal.
+ */
+public class SimulatedLedDriver implements LedDriverInterface {
+	private static final String ANSI_RESET = "\u001b[0m";
+
+	private final int[] pixels;
+	private final int brightness;
+	private final int maxRecordedFrames;
+	private final PrintStream mirror;
+	private final Deque<Frame> frames = new ArrayDeque<>();
+	private long renderCount;
+
+	/**
+	 * Creates a simulated driver.
+	 *
+	 * @param numPixels The number of pixels of the simulated strip.
+	 * @param brightness The brightness (0-255) that is applied to the terminal mirror, just like the real strip would.
+	 * @param maxRecordedFrames The number of frames to keep.
+	 * @param mirror The stream to which the frames are mirrored, or null if they shouldn't be.
+	 */
+	public SimulatedLedDriver(final int numPixels, final int brightness, final int maxRecordedFrames, final PrintStream mirror) {
+		this.pixels = new int[numPixels];
+		this.brightness = brightness;
+		this.maxRecordedFrames = maxRecordedFrames;
+		this.mirror = mirror;
+	}
+
+	@Override
+	public synchronized void close() {
+		if(mirror != null) {
+			mirror.println(ANSI_RESET);
+			mirror.flush();
+		}
+	}
+
+	@Override
+	public int getNumPixels() {
+		return pixels.length;
+	}
+
+	@Override
+	public synchronized void render() {
+		Frame frame = new Frame(System.nanoTime(), pixels.clone());
+
+		renderCount++;
+		frames.addLast(frame);
+
+		while(frames.size() > maxRecordedFrames) {
+			frames.removeFirst();
+		}
+
+		if(mirror != null) {
+			mirror.print(toAnsi(frame.pixels));
+			mirror.flush();
+		}
+	}
+
+	@Override
+	public synchronized void allOff() {
+		// just like the real thing, this renders right away.
+		Arrays.fill(pixels, 0);
+		render();
+	}
+
+	@Override
+	public synchronized int getPixelColour(final int pixel) {
+		return pixels[pixel];
+	}
+
+	@Override
+	public synchronized void setPixelColour(final int pixel, final int colour) {
+		pixels[pixel] = colour;
+	}
+
+	@Override
+	public void setPixelColourRGB(final int pixel, final int red, final int green, final int blue) {
+		setPixelColour(pixel, PixelColour.createColourRGB(red, green, blue));
+	}
+
+	@Override
+	public void setPixelColourHSB(final int pixel, final float hue, final float saturation, final float brightness) {
+		setPixelColour(pixel, Color.HSBtoRGB(hue, saturation, brightness) & 0xffffff);
+	}
+
+	@Override
+	public void setPixelColourHSL(final int pixel, final float hue, final float saturation, final float luminance) {
+		// HSL and HSB share the hue, so it's just a matter of converting saturation and lightness.
+		float value = luminance + saturation * Math.min(luminance, 1 - luminance);
+		float hsbSaturation = value == 0 ? 0 : 2 * (1 - luminance / value);
+
+		setPixelColourHSB(pixel, hue, hsbSaturation, value);
+	}
+
+	@Override
+	public synchronized void setRedComponent(final int pixel, final int red) {
+		int colour = pixels[pixel];
+		setPixelColourRGB(pixel, red, PixelColour.getGreenComponent(colour), PixelColour.getBlueComponent(colour));
+	}
+
+	@Override
+	public synchronized void setGreenComponent(final int pixel, final int green) {
+		int colour = pixels[pixel];
+		setPixelColourRGB(pixel, PixelColour.getRedComponent(colour), green, PixelColour.getBlueComponent(colour));
+	}
+
+	@Override
+	public synchronized void setBlueComponent(final int pixel, final int blue) {
+		int colour = pixels[pixel];
+		setPixelColourRGB(pixel, PixelColour.getRedComponent(colour), PixelColour.getGreenComponent(colour), blue);
+	}
+
+	/**
+	 * The number of frames rendered since the driver was created, including those that are no longer recorded.
+	 *
+	 * @return The number of rendered frames.
+	 */
+	public synchronized long getRenderCount() {
+		return renderCount;
+	}
+
+	/**
+	 * Returns the recorded frames, the oldest one first.
+	 *
+	 * @return A copy of the recorded frames.
+	 */
+	public synchronized List<Frame> getFrames() {
+		return new ArrayList<>(frames);
+	}
+
+	/**
+	 * Returns the frame that was rendered last.
+	 *
+	 * @return The last frame or null if nothing was rendered yet.
+	 */
+	public synchronized Frame getLastFrame() {
+		return frames.peekLast();
+	}
+
+	public synchronized void clearFrames() {
+		frames.clear();
+	}
+
+	private String toAnsi(final int[] frame) {
+		StringBuilder line = new StringBuilder(frame.length * 20);
+		line.append('\r');
+
+		for(int colour : frame) {
+			line.append("\u001b[48;2;")
+					.append(dim(PixelColour.getRedComponent(colour))).append(';')
+					.append(dim(PixelColour.getGreenComponent(colour))).append(';')
+					.append(dim(PixelColour.getBlueComponent(colour))).append("m ");
+		}
+
+		return line.append(ANSI_RESET).toString();
+	}
+
+	private int dim(final int component) {
+		return component * brightness / 255;
+	}
+
+	/**
+	 * A rendered frame.
+	 */
+	public static final class Frame {
+		private final long timestampNanos;
+		private final int[] pixels;
+
+		Frame(final long timestampNanos, final int[] pixels) {
+			this.timestampNanos = timestampNanos;
+			this.pixels = pixels;
+		}
+
+		/**
+		 * The time at which the frame was rendered in the {@link System#nanoTime()} time base.
+		 *
+		 * @return The time in ns.
+		 */
+		public long getTimestampNanos() {
+			return timestampNanos;
+		}
+
+		/**
+		 * The colors of all pixels of the frame.
+		 *
+		 * @return A copy of the pixels.
+		 */
+		public int[] getPixels() {
+			return pixels.clone();
+		}
+	}
+}
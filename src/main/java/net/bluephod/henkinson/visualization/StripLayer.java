@@ -0,0 +1,54 @@
+package net.bluephod.henkinson.visualization;
+
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+
+/**
+ * A visualization that draws into an off-screen buffer instead of talking to the strip itself.
+ * <p>
+ * Layers are combined by the {@link CompositorBuildStatusVisualization}, which owns the strip and the render thread. Each layer gets a
+ * buffer of its own with one color per column. The buffer is kept between frames, so a layer only has to redraw what changed.
+ * <p>
+ * The colors in the buffer are ARGB values. Layers that are part of the playlist cover the whole strip and their alpha is ignored;
+ * overlays use the alpha to let the layers below shine through, 0 meaning fully transparent and 255 meaning fully opaque.
+ * <p>
+ * {@link #update(JenkinsStatus)} is called by the polling thread and {@link #draw(int[], long)} by the render thread, so layers must hand
+ * over the status in a thread-safe way - an {@link java.util.concurrent.atomic.AtomicReference} usually does the trick.
+ */
+public interface StripLayer {
+	/**
+	 * Updates the status to be shown. This should return right away, the actual work is done when drawing.
+	 *
+	 * @param status The status that should be visualized.
+	 */
+	void update(JenkinsStatus status);
+
+	/**
+	 * Draws the layer as it looks at the given point in time.
+	 *
+	 * @param buffer The buffer of this layer, containing whatever was drawn into it the last time.
+	 * @param frameTimeNanos The time of the frame in the {@link System#nanoTime()} time base.
+	 * @return True if the buffer was changed.
+	 */
+	boolean draw(int[] buffer, long frameTimeNanos);
+
+	/**
+	 * Creates the layer with the given name.
+	 *
+	 * @param name The name of the layer as used in the configuration, e.g. "vumeter".
+	 * @param columns The number of columns of the strip.
+	 * @return The layer.
+	 * @throws IllegalArgumentException If there's no layer with that name.
+	 */
+	static StripLayer forName(String name, int columns) {
+		switch(name.toLowerCase()) {
+			case "vumeter":
+				return new VuMeterLayer(columns);
+			case "branchmap":
+				return new BranchMapLayer(columns);
+			case "runningbuilds":
+				return new RunningBuildsLayer(columns);
+			default:
+				throw new IllegalArgumentException("Unknown visualization: " + name);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package net.bluephod.henkinson.visualization;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.diozero.ws281xj.PixelColour;
+import net.bluephod.henkinson.jenkins.JenkinsStatus;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Visualizes the build status as a simple VU meter.
+ * <p>
+ * This visualization sets segments of the strip to red, yellow and green according to the proportions of the red, yellow and green
+ * branches in the status, much like a VU meter.
+ * <p>
+ * An update only replaces the target distribution and returns right away, the animation towards it happens while drawing. If the target
+ * changes while an animation is running, a new animation starts from wherever the old one was.
+ * <p>
+ * The first distribution fades in, later changes move the borders between the segments. Both are {@link Animation}s with a fixed
+ * duration, and a border that ends up between two columns is shown by mixing the colors of both segments in that column.
+ */
+public class VuMeterLayer implements StripLayer {
+
+	private static final int FADE_DURATION = 700;
+	private static final int MORPH_DURATION = 1000;
+
+	private static final int COLOR_GREEN = PixelColour.createColourRGB(0, 255, 0);
+	private static final int COLOR_YELLOW = PixelColour.createColourRGB(255, 255, 0);
+	private static final int COLOR_RED = PixelColour.createColourRGB(255, 0, 0);
+
+	private final int columns;
+	private final AtomicReference<StatusLedDistribution> targetDist = new AtomicReference<>();
+
+	// everything below is only touched by the render thread.
+	private StatusLedDistribution currentTarget;
+	private Animation animation;
+	private boolean fadingIn;
+	private int[] frame;
+	private int[] fadeFrom;
+	private int[] fadeTo;
+
+	// the borders between green and yellow and between yellow and red, in columns.
+	private double yellowStart;
+	private double redStart;
+	private double fromYellowStart;
+	private double fromRedStart;
+
+	public VuMeterLayer(final int columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public void update(JenkinsStatus status) {
+		StatusLedDistribution target = getDistribution(status);
+
+		Logger.debug("New target distribution is " + target);
+
+		targetDist.set(target);
+	}
+
+	@Override
+	public boolean draw(int[] buffer, long now) {
+		frame = buffer;
+
+		StatusLedDistribution target = targetDist.get();
+
+		if(target != null && !target.equals(currentTarget)) {
+			startAnimation(target, now);
+		}
+
+		if(animation == null) {
+			// nothing moving, so the buffer can stay as it is.
+			return false;
+		}
+
+		double progress = animation.getProgress(now);
+
+		if(fadingIn) {
+			for(int column = 0; column < columns; column++) {
+				frame[column] = Animation.interpolateColor(fadeFrom[column], fadeTo[column], progress);
+			}
+		}
+		else {
+			double currentYellowStart = Animation.interpolate(fromYellowStart, yellowStart, progress);
+			double currentRedStart = Animation.interpolate(fromRedStart, redStart, progress);
+
+			Logger.trace(String.format("Morphing, borders are at %.2f and %.2f", currentYellowStart, currentRedStart));
+
+			drawSegments(currentYellowStart, currentRedStart);
+		}
+
+		if(animation.isFinished(now)) {
+			animation = null;
+			fadingIn = false;
+		}
+
+		return true;
+	}
+
+	private void startAnimation(StatusLedDistribution target, long now) {
+		if(currentTarget == null || fadingIn) {
+			// just fade to the distribution on the first update - starting from whatever the buffer contains right now.
+			fadingIn = true;
+			fadeFrom = new int[columns];
+			fadeTo = new int[columns];
+
+			for(int column = 0; column < columns; column++) {
+				fadeFrom[column] = frame[column];
+				fadeTo[column] = getPixelColor(target, column);
+			}
+
+			animation = new Animation(now, FADE_DURATION, Easing.EASE_OUT);
+		}
+		else {
+			// start from the borders as they are shown right now, which isn't necessarily the previous target.
+			double progress = animation == null ? 1 : animation.getProgress(now);
+			fromYellowStart = Animation.interpolate(fromYellowStart, yellowStart, progress);
+			fromRedStart = Animation.interpolate(fromRedStart, redStart, progress);
+
+			animation = new Animation(now, MORPH_DURATION, Easing.EASE_IN_OUT);
+		}
+
+		yellowStart = target.getGreen();
+		redStart = target.getGreen() + target.getYellow();
+
+		if(fadingIn) {
+			fromYellowStart = yellowStart;
+			fromRedStart = redStart;
+		}
+
+		currentTarget = target;
+	}
+
+	private void drawSegments(double yellowStart, double redStart) {
+		for(int column = 0; column < columns; column++) {
+			// the share of each segment in the column, which is only fractional for a column containing a border.
+			double green = clamp(yellowStart - column);
+			double yellow = clamp(Math.min(redStart, column + 1) - Math.max(yellowStart, column));
+			double red = Math.max(0, 1 - green - yellow);
+
+			frame[column] = mix(green, yellow, red);
+		}
+	}
+
+	private int mix(double green, double yellow, double red) {
+		return PixelColour.createColourRGB(
+				mixComponent(PixelColour.getRedComponent(COLOR_GREEN), PixelColour.getRedComponent(COLOR_YELLOW),
+										 PixelColour.getRedComponent(COLOR_RED), green, yellow, red),
+				mixComponent(PixelColour.getGreenComponent(COLOR_GREEN), PixelColour.getGreenComponent(COLOR_YELLOW),
+										 PixelColour.getGreenComponent(COLOR_RED), green, yellow, red),
+				mixComponent(PixelColour.getBlueComponent(COLOR_GREEN), PixelColour.getBlueComponent(COLOR_YELLOW),
+										 PixelColour.getBlueComponent(COLOR_RED), green, yellow, red));
+	}
+
+	private int mixComponent(int greenValue, int yellowValue, int redValue, double green, double yellow, double red) {
+		return (int) Math.round(Math.min(255, greenValue * green + yellowValue * yellow + redValue * red));
+	}
+
+	private double clamp(double share) {
+		return Math.max(0, Math.min(1, share));
+	}
+
+	private StatusLedDistribution getDistribution(JenkinsStatus status) {
+		double ledsPerCount = ((double) columns) / ((double) status.getTotal());
+
+		int yellow = (int) Math.floor(ledsPerCount * status.getYellow());
+		int red = (int) Math.floor(ledsPerCount * status.getRed());
+
+		// make sure that at least one yellow and one red is shown if red/yellow builds are > 0
+		if(status.getYellow() > 0 && yellow == 0) {
+			yellow = 1;
+		}
+
+		if(status.getRed() > 0 && red == 0) {
+			red = 1;
+		}
+
+		// make the rest green
+		int green = columns - (red + yellow);
+
+		return new StatusLedDistribution(green, yellow, red);
+	}
+
+	private int getPixelColor(StatusLedDistribution dist, int pixel) {
+		if(pixel >= columns) {
+			return 0;
+		}
+
+		if(pixel >= dist.getGreen() + dist.getYellow()) {
+			return COLOR_RED;
+		}
+
+		if(pixel >= dist.getGreen()) {
+			return COLOR_YELLOW;
+		}
+
+		return COLOR_GREEN;
+	}
+
+	private static class StatusLedDistribution {
+		private int green;
+		private int yellow;
+		private int red;
+
+		StatusLedDistribution(final int green, final int yellow, final int red) {
+			this.green = green;
+			this.yellow = yellow;
+			this.red = red;
+		}
+
+		public int getGreen() {
+			return green;
+		}
+
+		public int getYellow() {
+			return yellow;
+		}
+
+		public int getRed() {
+			return red;
+		}
+
+		public int getTotal() {
+			return red + green + yellow;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(green, yellow, red);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			StatusLedDistribution that = (StatusLedDistribution) o;
+			return green == that.green &&
+					yellow == that.yellow &&
+					red == that.red;
+		}
+
+		@Override
+		public String toString() {
+			return "StatusLedDistribution{" +
+					"green=" + green +
+					", yellow=" + yellow +
+					", red=" + red +
+					'}';
+		}
+	}
+}